@@ -16,6 +16,8 @@ export default function Profile() {
     const [saving, setSaving] = useState(false);
     const [saved, setSaved] = useState(false);
     const [loading, setLoading] = useState(true);
+    // New picture picked but not uploaded yet
+    const [pictureFile, setPictureFile] = useState(null);
 
     const [profile, setProfile] = useState({
         name: '',
@@ -36,11 +38,16 @@ export default function Profile() {
                     name: data.name || '',
                     email: data.email || '',
                     contact: data.contact || '',
-                    profilePic: data.profilePic || '',
+                    profilePic: '',
                     bankName: data.bankName || '',
                     bankAccountNumber: data.bankAccountNumber || '',
                     bankIfsc: data.bankIfsc || '',
                 });
+                // The picture is served separately, by content hash
+                if (data.profilePicHash) {
+                    const pic = await axios.get(`${API}/profile/picture`, { ...getAuthHeaders(), responseType: 'blob' });
+                    setProfile(prev => ({ ...prev, profilePic: URL.createObjectURL(pic.data) }));
+                }
             } catch (err) {
                 console.error('Failed to load profile', err);
             } finally {
@@ -57,11 +64,8 @@ export default function Profile() {
     const handlePhotoChange = (e) => {
         const file = e.target.files[0];
         if (!file) return;
-        const reader = new FileReader();
-        reader.onloadend = () => {
-            setProfile(prev => ({ ...prev, profilePic: reader.result }));
-        };
-        reader.readAsDataURL(file);
+        setPictureFile(file);
+        setProfile(prev => ({ ...prev, profilePic: URL.createObjectURL(file) }));
     };
 
     const handleSave = async () => {
@@ -70,11 +74,18 @@ export default function Profile() {
             await axios.put(`${API}/profile`, {
                 name: profile.name,
                 contact: profile.contact,
-                profilePic: profile.profilePic,
                 bankName: profile.bankName,
                 bankAccountNumber: profile.bankAccountNumber,
                 bankIfsc: profile.bankIfsc,
             }, getAuthHeaders());
+            if (pictureFile) {
+                // Raw image bytes, streamed to the server's blob store
+                const auth = getAuthHeaders().headers || {};
+                await axios.put(`${API}/profile/picture`, pictureFile, {
+                    headers: { ...auth, 'Content-Type': pictureFile.type },
+                });
+                setPictureFile(null);
+            }
             // Update localStorage name if changed
             localStorage.setItem('name', profile.name);
             setSaved(true);
@@ -135,7 +146,7 @@ export default function Profile() {
                             }} onClick={() => fileInputRef.current?.click()}>
                                 <Camera size={14} color="#fff" />
                             </div>
-                            <input ref={fileInputRef} type="file" accept="image/*" style={{ display: 'none' }} onChange={handlePhotoChange} />
+                            <input ref={fileInputRef} type="file" accept="image/png,image/jpeg,image/gif,image/webp" style={{ display: 'none' }} onChange={handlePhotoChange} />
                         </div>
                         <div style={{ flex: 1 }}>
                             <div style={{ fontSize: '0.85rem', color: 'var(--text-muted)', marginBottom: '0.5rem' }}>Display Name</div>
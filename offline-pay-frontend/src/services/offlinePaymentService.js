@@ -37,9 +37,14 @@ export const syncTransactions = async () => {
 
         const token = localStorage.getItem("token");
         const headers = token ? { Authorization: `Bearer ${token}` } : {};
+        const { body, contentEncoding } = await encodeSyncBody(pendingTxs);
+        headers['Content-Type'] = 'application/json';
+        if (contentEncoding) {
+            headers['Content-Encoding'] = contentEncoding;
+        }
 
         // Use our backend endpoint
-        const response = await axios.post('https://offline-payment-system-backend.onrender.com/api/offline-transaction/sync', pendingTxs, { headers });
+        const response = await axios.post('https://offline-payment-system-backend.onrender.com/api/offline-transaction/sync', body, { headers });
 
         if (response.status === 200) {
             console.log("Sync successful!");
@@ -52,3 +57,15 @@ export const syncTransactions = async () => {
         console.error("Sync failed", e);
     }
 }
+
+// Gzips the batch where the browser supports CompressionStream; large
+// backlogs shrink several times on slow links
+const encodeSyncBody = async (transactions) => {
+    const json = JSON.stringify(transactions);
+    if (typeof CompressionStream === 'undefined') {
+        return { body: json, contentEncoding: null };
+    }
+    const stream = new Blob([json]).stream().pipeThrough(new CompressionStream('gzip'));
+    const body = await new Response(stream).arrayBuffer();
+    return { body, contentEncoding: 'gzip' };
+};
@@ -0,0 +1,45 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.security.SignatureVerifier;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Base64;
+import java.util.UUID;
+
+// Helpers shared by the benchmarks: a P-256 key pair like the one WebCrypto
+// generates on devices, and correctly signed offline payment requests.
+final class BenchmarkKeys {
+
+    private BenchmarkKeys() {
+    }
+
+    static KeyPair newKeyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    static String encodedPublicKey(KeyPair keyPair) {
+        return Base64.getEncoder().encodeToString(keyPair.getPublic().getEncoded());
+    }
+
+    static OfflineTransactionRequest signedRequest(KeyPair keyPair, UUID senderId, UUID receiverId,
+            BigDecimal amount) throws Exception {
+        OfflineTransactionRequest request = new OfflineTransactionRequest();
+        request.setSenderId(senderId);
+        request.setReceiverId(receiverId);
+        request.setAmount(amount);
+        request.setNonce(UUID.randomUUID().toString());
+
+        Signature signer = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signer.initSign(keyPair.getPrivate());
+        signer.update(SignatureVerifier.payload(request));
+        request.setSignature(Base64.getEncoder().encodeToString(signer.sign()));
+        return request;
+    }
+}
@@ -0,0 +1,90 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.OfflinePaymentBackendApplication;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.service.WalletMutationService;
+import com.offlinepay.backend.service.WalletStriping;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Credits/s into one hot merchant wallet from 16 concurrent payers, by stripe
+// count. With 1 stripe every credit queues on the wallet row; throughput
+// should grow with the stripe count until the database or CPU saturates.
+// H2 is only indicative here; point spring.datasource.url at PostgreSQL for
+// representative numbers.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(16)
+public class HotWalletCreditBenchmark {
+
+    private static final BigDecimal AMOUNT = new BigDecimal("1.00");
+
+    @Param({ "1", "4", "16" })
+    public int stripes;
+
+    private ConfigurableApplicationContext context;
+    private WalletMutationService walletMutationService;
+    private TransactionTemplate transaction;
+    private UUID merchantId;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(OfflinePaymentBackendApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        walletMutationService = context.getBean(WalletMutationService.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+
+        merchantId = createMerchant("merchant-" + stripes + "@test.local");
+        context.getBean(WalletStriping.class).setStripes(merchantId, stripes);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    public void creditHotWallet() {
+        transaction.executeWithoutResult(status ->
+                walletMutationService.credit(merchantId, AMOUNT, "Wallet not found"));
+    }
+
+    private UUID createMerchant(String email) {
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        context.getBean(WalletRepository.class).save(Wallet.builder()
+                .user(user)
+                .balance(BigDecimal.ZERO)
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user.getId();
+    }
+}
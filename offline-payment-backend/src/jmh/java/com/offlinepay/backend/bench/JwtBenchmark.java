@@ -0,0 +1,66 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.security.JwtService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Per-request auth cost: issuing a token at login and validating it on every call
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JwtBenchmark {
+
+    // Same secret JwtService signs with
+    private static final String SECRET = "mySuperSecretKeyForJWTGeneration1234567890123456";
+
+    private final UUID userId = UUID.randomUUID();
+    private final UUID walletId = UUID.randomUUID();
+    private JwtService jwtService;
+    private String token;
+    private JwtParser parser;
+
+    @Setup
+    public void setUp() {
+        jwtService = new JwtService(10_000, 60_000);
+        token = jwtService.generateToken("bench@test.local", userId, walletId);
+        parser = Jwts.parserBuilder()
+                .setSigningKey(Keys.hmacShaKeyFor(SECRET.getBytes()))
+                .build();
+    }
+
+    @Benchmark
+    public String generateToken() {
+        return jwtService.generateToken("bench@test.local", userId, walletId);
+    }
+
+    @Benchmark
+    public boolean isTokenValid() {
+        return jwtService.isTokenValid(token);
+    }
+
+    // What JwtAuthenticationFilter does for each authenticated request: one
+    // validation, served from the verified-token cache after the first call
+    @Benchmark
+    public Optional<Claims> validateToken() {
+        return jwtService.validateToken(token);
+    }
+
+    // Full HMAC verification and parse, as every request paid before caching
+    @Benchmark
+    public Claims parseUncached() {
+        return parser.parseClaimsJws(token).getBody();
+    }
+}
@@ -0,0 +1,51 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.security.SignatureVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Small per-payment CPU costs: signed payload construction and balance arithmetic
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PayloadBenchmark {
+
+    private OfflineTransactionRequest request;
+    private BigDecimal balance;
+    private BigDecimal amount;
+
+    @Setup
+    public void setUp() {
+        request = new OfflineTransactionRequest();
+        request.setSenderId(UUID.randomUUID());
+        request.setReceiverId(UUID.randomUUID());
+        request.setAmount(new BigDecimal("125.50"));
+        request.setNonce(UUID.randomUUID().toString());
+        balance = new BigDecimal("10452.75");
+        amount = new BigDecimal("125.50");
+    }
+
+    @Benchmark
+    public byte[] payloadBytes() {
+        return SignatureVerifier.payload(request);
+    }
+
+    // Balance check followed by debit and credit, as a transfer does
+    @Benchmark
+    public BigDecimal balanceArithmetic() {
+        if (balance.compareTo(amount) < 0) {
+            return balance;
+        }
+        return balance.subtract(amount).add(amount);
+    }
+}
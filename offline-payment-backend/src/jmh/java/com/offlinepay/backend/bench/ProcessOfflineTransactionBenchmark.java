@@ -0,0 +1,92 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.OfflinePaymentBackendApplication;
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.entity.OfflineTransaction;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.service.OfflineTransactionService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.time.LocalDateTime;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// End-to-end offline payment against the H2 'test' profile: nonce check,
+// user lookups, signature verification, wallet updates and log inserts.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ProcessOfflineTransactionBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private OfflineTransactionService offlineTransactionService;
+    private KeyPair keyPair;
+    private UUID senderId;
+    private UUID receiverId;
+
+    @Setup(Level.Trial)
+    public void startApplication() throws Exception {
+        context = new SpringApplicationBuilder(OfflinePaymentBackendApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        offlineTransactionService = context.getBean(OfflineTransactionService.class);
+
+        keyPair = BenchmarkKeys.newKeyPair();
+        senderId = createUser("bench-sender@test.local", BenchmarkKeys.encodedPublicKey(keyPair));
+        receiverId = createUser("bench-receiver@test.local", null);
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class NextRequest {
+        OfflineTransactionRequest request;
+
+        // Signing happens outside the measured call; each invocation needs a fresh nonce
+        @Setup(Level.Invocation)
+        public void sign(ProcessOfflineTransactionBenchmark bench) throws Exception {
+            request = BenchmarkKeys.signedRequest(bench.keyPair, bench.senderId, bench.receiverId,
+                    new BigDecimal("1.00"));
+        }
+    }
+
+    @Benchmark
+    public OfflineTransaction processOfflineTransaction(NextRequest next) {
+        return offlineTransactionService.processOfflineTransaction(next.request);
+    }
+
+    private UUID createUser(String email, String publicKey) {
+        User user = context.getBean(UserRepository.class).save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .publicKey(publicKey)
+                .createdAt(LocalDateTime.now())
+                .build());
+        context.getBean(WalletRepository.class).save(Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal("1000000000.00"))
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user.getId();
+    }
+}
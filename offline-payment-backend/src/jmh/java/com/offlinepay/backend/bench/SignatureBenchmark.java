@@ -0,0 +1,66 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.security.PublicKeyCache;
+import com.offlinepay.backend.security.SignatureVerifier;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.security.KeyFactory;
+import java.security.KeyPair;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+// Offline payment signature verification: the original decode/parse/getInstance
+// per call versus the cached key and thread-local Signature path.
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SignatureBenchmark {
+
+    private final UUID senderId = UUID.randomUUID();
+    private String encodedKey;
+    private OfflineTransactionRequest request;
+    private PublicKeyCache publicKeyCache;
+    private SignatureVerifier signatureVerifier;
+
+    @Setup
+    public void setUp() throws Exception {
+        KeyPair keyPair = BenchmarkKeys.newKeyPair();
+        encodedKey = BenchmarkKeys.encodedPublicKey(keyPair);
+        request = BenchmarkKeys.signedRequest(keyPair, senderId, UUID.randomUUID(), new BigDecimal("25.00"));
+        publicKeyCache = new PublicKeyCache(1000);
+        signatureVerifier = new SignatureVerifier();
+    }
+
+    @Benchmark
+    public boolean verifyParsingKeyEachTime() throws Exception {
+        byte[] pkBytes = Base64.getDecoder().decode(encodedKey);
+        PublicKey publicKey = KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(pkBytes));
+
+        Signature sig = Signature.getInstance("SHA256withECDSAinP1363Format");
+        sig.initVerify(publicKey);
+        sig.update(SignatureVerifier.payload(request));
+        return sig.verify(Base64.getDecoder().decode(request.getSignature()));
+    }
+
+    @Benchmark
+    public boolean verifyWithCachedKey() throws Exception {
+        return signatureVerifier.verify(request, publicKeyCache.get(senderId, encodedKey));
+    }
+
+    @Benchmark
+    public PublicKey publicKeyCacheHit() throws Exception {
+        return publicKeyCache.get(senderId, encodedKey);
+    }
+}
@@ -0,0 +1,104 @@
+package com.offlinepay.backend.bench;
+
+import com.offlinepay.backend.OfflinePaymentBackendApplication;
+import com.offlinepay.backend.entity.Transaction;
+import com.offlinepay.backend.entity.TransactionStatus;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.repository.TransactionRepository;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.service.TransactionLogBatcher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+// Log-row insert throughput (rows/s) against the H2 'test' profile, ROWS
+// rows per transaction as a sync chunk writes them: one JPA save per row
+// versus TransactionLogBatcher's JDBC batch at commit.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class TransactionLogBatchBenchmark {
+
+    private static final int ROWS = 500;
+
+    private ConfigurableApplicationContext context;
+    private TransactionRepository transactionRepository;
+    private TransactionLogBatcher transactionLogBatcher;
+    private TransactionTemplate transaction;
+    private User sender;
+    private User receiver;
+
+    @Setup(Level.Trial)
+    public void startApplication() {
+        context = new SpringApplicationBuilder(OfflinePaymentBackendApplication.class)
+                .profiles("test")
+                .properties("server.port=0")
+                .run();
+        transactionRepository = context.getBean(TransactionRepository.class);
+        transactionLogBatcher = context.getBean(TransactionLogBatcher.class);
+        transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+        sender = createUser("log-batch-sender@test.local");
+        receiver = createUser("log-batch-receiver@test.local");
+    }
+
+    @TearDown(Level.Trial)
+    public void stopApplication() {
+        context.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void saveEachRow() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                transactionRepository.save(row());
+            }
+        });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS)
+    public void batchedAtCommit() {
+        transaction.executeWithoutResult(status -> {
+            for (int i = 0; i < ROWS; i++) {
+                transactionLogBatcher.append(row());
+            }
+        });
+    }
+
+    private Transaction row() {
+        return Transaction.builder()
+                .sender(sender)
+                .receiver(receiver)
+                .amount(BigDecimal.ONE)
+                .status(TransactionStatus.COMPLETED)
+                .transactionType("ONLINE")
+                .build();
+    }
+
+    private User createUser(String email) {
+        return context.getBean(UserRepository.class).save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,71 @@
+package com.offlinepay.backend.bench;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.offlinepay.backend.codec.OfflineBatchCodec;
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+// Decoding a sync upload: Jackson JSON against the binary batch format
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+    private static final TypeReference<List<OfflineTransactionRequest>> BATCH = new TypeReference<>() {
+    };
+
+    @Param({ "1000" })
+    public int items;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private byte[] json;
+    private byte[] binary;
+
+    @Setup
+    public void setUp() throws Exception {
+        List<OfflineTransactionRequest> batch = new ArrayList<>(items);
+        for (int i = 0; i < items; i++) {
+            byte[] signature = new byte[64];
+            ThreadLocalRandom.current().nextBytes(signature);
+            OfflineTransactionRequest request = new OfflineTransactionRequest();
+            request.setSenderId(UUID.randomUUID());
+            request.setReceiverId(UUID.randomUUID());
+            request.setAmount(new BigDecimal("125.5"));
+            request.setNonce(UUID.randomUUID().toString());
+            request.setSignature(Base64.getEncoder().encodeToString(signature));
+            batch.add(request);
+        }
+        json = objectMapper.writeValueAsBytes(batch);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OfflineBatchCodec.write(batch, out);
+        binary = out.toByteArray();
+    }
+
+    @Benchmark
+    public List<OfflineTransactionRequest> json() throws Exception {
+        return objectMapper.readValue(json, BATCH);
+    }
+
+    @Benchmark
+    public List<OfflineTransactionRequest> binary() throws Exception {
+        return OfflineBatchCodec.read(new ByteArrayInputStream(binary));
+    }
+}
@@ -0,0 +1,35 @@
+package com.offlinepay.backend.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Path;
+import java.util.Optional;
+
+/**
+ * Content-addressed storage for binary payloads such as profile pictures.
+ * A blob is identified by the lowercase hex SHA-256 of its bytes, so storing
+ * the same content twice keeps one copy and a hash can be used as an ETag.
+ */
+public interface BlobStore {
+
+    /**
+     * Streams content into the store, hashing it on the way.
+     *
+     * @throws BlobTooLargeException if the content exceeds maxBytes; nothing is kept
+     */
+    StoredBlob put(InputStream content, long maxBytes) throws IOException;
+
+    Optional<StoredBlob> stat(String hash);
+
+    /** Reads the first bytes of a blob, fewer if it is shorter. */
+    byte[] head(String hash, int length) throws IOException;
+
+    /** Copies the whole blob to target and returns the number of bytes written. */
+    long transferTo(String hash, WritableByteChannel target) throws IOException;
+
+    /** The blob as a local file, for stores that have one (lets the container use sendfile). */
+    default Optional<Path> localFile(String hash) {
+        return Optional.empty();
+    }
+}
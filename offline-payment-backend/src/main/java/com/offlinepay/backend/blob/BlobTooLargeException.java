@@ -0,0 +1,8 @@
+package com.offlinepay.backend.blob;
+
+public class BlobTooLargeException extends RuntimeException {
+
+    public BlobTooLargeException(long maxBytes) {
+        super("Content larger than " + maxBytes + " bytes");
+    }
+}
@@ -0,0 +1,4 @@
+package com.offlinepay.backend.blob;
+
+public record StoredBlob(String hash, long size) {
+}
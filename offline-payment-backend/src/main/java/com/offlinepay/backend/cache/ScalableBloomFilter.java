@@ -0,0 +1,184 @@
+package com.offlinepay.backend.cache;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Scalable Bloom filter for strings (Almeida et al.): when the current slice
+ * reaches its capacity a new slice is added with twice the capacity and half
+ * the false-positive rate, so the overall rate stays bounded as the set grows.
+ *
+ * Lookups and inserts are lock-free; only adding a slice takes a lock.
+ */
+public class ScalableBloomFilter {
+
+    private static final int GROWTH_FACTOR = 2;
+    private static final double TIGHTENING_RATIO = 0.5;
+
+    private final ReentrantLock growLock = new ReentrantLock();
+    private volatile Slice[] slices;
+
+    public ScalableBloomFilter(long initialCapacity, double falsePositiveRate) {
+        if (initialCapacity <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Invalid Bloom filter parameters");
+        }
+        this.slices = new Slice[] { new Slice(initialCapacity, falsePositiveRate * (1 - TIGHTENING_RATIO)) };
+    }
+
+    public boolean mightContain(String value) {
+        long h1 = hash1(value);
+        long h2 = hash2(value);
+        for (Slice slice : slices) {
+            if (slice.mightContain(h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public void put(String value) {
+        long h1 = hash1(value);
+        long h2 = hash2(value);
+        currentSlice().put(h1, h2);
+    }
+
+    /** Estimated false-positive probability given the current fill of every slice. */
+    public double expectedFalsePositiveRate() {
+        double allMiss = 1.0;
+        for (Slice slice : slices) {
+            allMiss *= 1.0 - slice.currentFalsePositiveRate();
+        }
+        return 1.0 - allMiss;
+    }
+
+    public long approximateElementCount() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.count.get();
+        }
+        return total;
+    }
+
+    public long memoryBytes() {
+        long total = 0;
+        for (Slice slice : slices) {
+            total += slice.bits.length() * (long) Long.BYTES;
+        }
+        return total;
+    }
+
+    public int sliceCount() {
+        return slices.length;
+    }
+
+    private Slice currentSlice() {
+        Slice[] current = slices;
+        Slice last = current[current.length - 1];
+        if (last.count.get() < last.capacity) {
+            return last;
+        }
+
+        growLock.lock();
+        try {
+            current = slices;
+            last = current[current.length - 1];
+            if (last.count.get() >= last.capacity) {
+                Slice next = new Slice(last.capacity * GROWTH_FACTOR, last.falsePositiveRate * TIGHTENING_RATIO);
+                Slice[] grown = Arrays.copyOf(current, current.length + 1);
+                grown[current.length] = next;
+                slices = grown;
+                return next;
+            }
+            return last;
+        } finally {
+            growLock.unlock();
+        }
+    }
+
+    private static long hash1(String value) {
+        long h = 1125899906842597L;
+        for (int i = 0; i < value.length(); i++) {
+            h = 31 * h + value.charAt(i);
+        }
+        return fmix64(h);
+    }
+
+    // Computed from the value itself (FNV-1a), not from hash1: a second hash
+    // derived from the first makes the double-hashing probes correlated, and
+    // values colliding on hash1 would collide on every probe. Forced odd so
+    // the probe stride never collapses to zero.
+    private static long hash2(String value) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < value.length(); i++) {
+            h = (h ^ value.charAt(i)) * 0x100000001b3L;
+        }
+        return fmix64(h) | 1L;
+    }
+
+    // MurmurHash3 finalizer
+    private static long fmix64(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+
+    private static final class Slice {
+        final long capacity;
+        final double falsePositiveRate;
+        final long numBits;
+        final int numHashes;
+        final AtomicLongArray bits;
+        final AtomicLong count = new AtomicLong();
+
+        Slice(long capacity, double falsePositiveRate) {
+            this.capacity = capacity;
+            this.falsePositiveRate = falsePositiveRate;
+            long optimalBits = (long) Math.ceil(-capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+            int words = (int) Math.max(1, (optimalBits + 63) / 64);
+            this.numBits = words * 64L;
+            this.numHashes = Math.max(1, (int) Math.round((double) numBits / capacity * Math.log(2)));
+            this.bits = new AtomicLongArray(words);
+        }
+
+        boolean mightContain(long h1, long h2) {
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                if ((bits.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        void put(long h1, long h2) {
+            boolean changed = false;
+            for (int i = 0; i < numHashes; i++) {
+                long bit = Math.floorMod(h1 + i * h2, numBits);
+                int word = (int) (bit >>> 6);
+                long mask = 1L << bit;
+                long old;
+                do {
+                    old = bits.get(word);
+                    if ((old & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, old, old | mask));
+                if ((old & mask) == 0) {
+                    changed = true;
+                }
+            }
+            if (changed) {
+                count.incrementAndGet();
+            }
+        }
+
+        double currentFalsePositiveRate() {
+            return Math.pow(1 - Math.exp(-numHashes * (double) count.get() / numBits), numHashes);
+        }
+    }
+}
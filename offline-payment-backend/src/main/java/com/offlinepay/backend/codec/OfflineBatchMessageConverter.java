@@ -0,0 +1,76 @@
+package com.offlinepay.backend.codec;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Reads and writes {@code List<OfflineTransactionRequest>} bodies in the
+ * {@link OfflineBatchCodec} format, so the sync endpoints accept it next to
+ * JSON based on the request Content-Type.
+ */
+public class OfflineBatchMessageConverter extends AbstractGenericHttpMessageConverter<List<OfflineTransactionRequest>> {
+
+    public OfflineBatchMessageConverter() {
+        super(MediaType.parseMediaType(OfflineBatchCodec.MEDIA_TYPE));
+    }
+
+    @Override
+    protected boolean supports(@NonNull Class<?> clazz) {
+        return List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(@NonNull Type type, @Nullable Class<?> contextClass, @Nullable MediaType mediaType) {
+        return isBatchType(type) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(@Nullable Type type, @NonNull Class<?> clazz, @Nullable MediaType mediaType) {
+        return type != null && isBatchType(type) && canWrite(mediaType);
+    }
+
+    @Override
+    @NonNull
+    public List<OfflineTransactionRequest> read(@NonNull Type type, @Nullable Class<?> contextClass,
+            @NonNull HttpInputMessage inputMessage) throws IOException {
+        return decode(inputMessage);
+    }
+
+    @Override
+    @NonNull
+    protected List<OfflineTransactionRequest> readInternal(@NonNull Class<? extends List<OfflineTransactionRequest>> clazz,
+            @NonNull HttpInputMessage inputMessage) throws IOException {
+        return decode(inputMessage);
+    }
+
+    private static List<OfflineTransactionRequest> decode(HttpInputMessage inputMessage) throws IOException {
+        try {
+            return OfflineBatchCodec.read(inputMessage.getBody());
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Invalid offline sync batch: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    protected void writeInternal(@NonNull List<OfflineTransactionRequest> batch, @Nullable Type type,
+            @NonNull HttpOutputMessage outputMessage) throws IOException {
+        OfflineBatchCodec.write(batch, outputMessage.getBody());
+    }
+
+    private static boolean isBatchType(Type type) {
+        ResolvableType resolved = ResolvableType.forType(type);
+        return List.class.isAssignableFrom(resolved.toClass())
+                && resolved.getGeneric(0).toClass() == OfflineTransactionRequest.class;
+    }
+}
@@ -0,0 +1,21 @@
+package com.offlinepay.backend.compression;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+// Thread CPU time, so time blocked on the network while (de)compressing is
+// not counted. Falls back to wall time where the JVM cannot measure it
+// (virtual threads report -1).
+final class CpuTime {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+    private static final boolean SUPPORTED = THREADS.isCurrentThreadCpuTimeSupported() && THREADS.isThreadCpuTimeEnabled();
+
+    private CpuTime() {
+    }
+
+    static long now() {
+        long cpu = SUPPORTED ? THREADS.getCurrentThreadCpuTime() : -1;
+        return cpu >= 0 ? cpu : System.nanoTime();
+    }
+}
@@ -0,0 +1,204 @@
+package com.offlinepay.backend.compression;
+
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Presents a gzip request body as the plain body, inflated lazily as it is
+ * read, and hides the Content-Encoding and Content-Length headers that
+ * describe the compressed form. Inflation is capped at maxInflatedBytes.
+ */
+class GzipRequestWrapper extends HttpServletRequestWrapper {
+
+    // Large reads keep the per-call CPU clock overhead negligible
+    private static final int READ_BUFFER = 64 * 1024;
+
+    private final long maxInflatedBytes;
+    private ServletInputStream inputStream;
+    private BufferedReader reader;
+    private CountingInputStream compressed;
+    private long inflatedBytes;
+    private long cpuNanos;
+    private boolean finished;
+
+    GzipRequestWrapper(HttpServletRequest request, long maxInflatedBytes) {
+        super(request);
+        this.maxInflatedBytes = maxInflatedBytes;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() throws IOException {
+        if (reader != null) {
+            throw new IllegalStateException("getReader() has already been called");
+        }
+        if (inputStream == null) {
+            compressed = new CountingInputStream(super.getInputStream());
+            InputStream inflated = new BufferedInputStream(new InflatingInputStream(compressed), READ_BUFFER);
+            inputStream = new ServletInputStream() {
+                @Override
+                public int read() throws IOException {
+                    return inflated.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) throws IOException {
+                    return inflated.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return finished;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    throw new UnsupportedOperationException("Non-blocking reads are not supported on gzip bodies");
+                }
+            };
+        }
+        return inputStream;
+    }
+
+    @Override
+    public BufferedReader getReader() throws IOException {
+        if (reader == null) {
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+            reader = new BufferedReader(new InputStreamReader(getInputStream(), charset));
+        }
+        return reader;
+    }
+
+    @Override
+    public int getContentLength() {
+        return -1;
+    }
+
+    @Override
+    public long getContentLengthLong() {
+        return -1;
+    }
+
+    @Override
+    public String getHeader(String name) {
+        return isHidden(name) ? null : super.getHeader(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaders(String name) {
+        return isHidden(name) ? Collections.emptyEnumeration() : super.getHeaders(name);
+    }
+
+    @Override
+    public Enumeration<String> getHeaderNames() {
+        List<String> names = Collections.list(super.getHeaderNames());
+        names.removeIf(GzipRequestWrapper::isHidden);
+        return Collections.enumeration(names);
+    }
+
+    /** Reports the body to the metrics, if any of it was read. */
+    void complete(PaymentMetrics paymentMetrics) {
+        if (compressed != null && compressed.count > 0) {
+            paymentMetrics.compression(PaymentMetrics.Direction.REQUEST, inflatedBytes, compressed.count, cpuNanos);
+        }
+    }
+
+    private static boolean isHidden(String name) {
+        return HttpHeaders.CONTENT_ENCODING.equalsIgnoreCase(name) || HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name);
+    }
+
+    private final class InflatingInputStream extends InputStream {
+
+        private final InputStream source;
+        private GZIPInputStream gzip;
+
+        InflatingInputStream(InputStream source) {
+            this.source = source;
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] one = new byte[1];
+            return read(one, 0, 1) < 0 ? -1 : one[0] & 0xFF;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            long start = CpuTime.now();
+            try {
+                if (gzip == null) {
+                    // Reads the gzip header, so it is timed too
+                    gzip = new GZIPInputStream(source, READ_BUFFER);
+                }
+                int n = gzip.read(b, off, len);
+                if (n < 0) {
+                    finished = true;
+                    return n;
+                }
+                inflatedBytes += n;
+                if (inflatedBytes > maxInflatedBytes) {
+                    throw new IOException("Request body inflates to more than " + maxInflatedBytes + " bytes");
+                }
+                return n;
+            } finally {
+                cpuNanos += CpuTime.now() - start;
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (gzip != null) {
+                gzip.close();
+            }
+        }
+    }
+
+    private static final class CountingInputStream extends FilterInputStream {
+
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b >= 0) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int n = super.read(b, off, len);
+            if (n > 0) {
+                count += n;
+            }
+            return n;
+        }
+    }
+}
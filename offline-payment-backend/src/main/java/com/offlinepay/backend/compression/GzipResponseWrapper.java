@@ -0,0 +1,263 @@
+package com.offlinepay.backend.compression;
+
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import jakarta.servlet.http.HttpServletResponseWrapper;
+import org.springframework.http.HttpHeaders;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Gzips the response body once it grows past minBytes.
+ *
+ * The first bytes are held back until the threshold is crossed, so a small
+ * body is still sent as-is with its Content-Length. Past the threshold the
+ * held bytes and everything after them are deflated in 8 KB blocks.
+ * flush() is honoured with a gzip sync flush, so streamed NDJSON keeps
+ * arriving line by line; below the threshold it is deferred to
+ * {@link #finish}.
+ */
+class GzipResponseWrapper extends HttpServletResponseWrapper {
+
+    private static final int GZIP_BUFFER = 8192;
+
+    private final byte[] pending;
+    private final int minBytes;
+    private int pendingCount;
+
+    private CountingOutputStream encoded;
+    private GZIPOutputStream gzip;
+    private long rawBytes;
+    private long cpuNanos;
+
+    private ServletOutputStream outputStream;
+    private PrintWriter writer;
+
+    GzipResponseWrapper(HttpServletResponse response, int minBytes) {
+        super(response);
+        this.minBytes = minBytes;
+        this.pending = new byte[Math.max(minBytes, GZIP_BUFFER)];
+    }
+
+    @Override
+    public ServletOutputStream getOutputStream() {
+        if (writer != null) {
+            throw new IllegalStateException("getWriter() has already been called");
+        }
+        return stream();
+    }
+
+    private ServletOutputStream stream() {
+        if (outputStream == null) {
+            outputStream = new ServletOutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    write(new byte[] { (byte) b }, 0, 1);
+                }
+
+                @Override
+                public void write(byte[] b, int off, int len) throws IOException {
+                    GzipResponseWrapper.this.write(b, off, len);
+                }
+
+                @Override
+                public void flush() throws IOException {
+                    GzipResponseWrapper.this.flush();
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                @Override
+                public void setWriteListener(WriteListener writeListener) {
+                    throw new UnsupportedOperationException("Non-blocking writes are not supported on gzip bodies");
+                }
+            };
+        }
+        return outputStream;
+    }
+
+    @Override
+    public PrintWriter getWriter() throws IOException {
+        if (writer == null) {
+            if (outputStream != null) {
+                throw new IllegalStateException("getOutputStream() has already been called");
+            }
+            String encoding = getCharacterEncoding();
+            Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.ISO_8859_1;
+            writer = new PrintWriter(new OutputStreamWriter(stream(), charset));
+        }
+        return writer;
+    }
+
+    // The length of the uncompressed body; set from finish() when it applies
+    @Override
+    public void setContentLength(int len) {
+    }
+
+    @Override
+    public void setContentLengthLong(long len) {
+    }
+
+    @Override
+    public void setHeader(String name, String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void flushBuffer() throws IOException {
+        flush();
+    }
+
+    @Override
+    public void resetBuffer() {
+        if (gzip != null) {
+            throw new IllegalStateException("Response body has already been sent");
+        }
+        pendingCount = 0;
+        super.resetBuffer();
+    }
+
+    @Override
+    public void reset() {
+        resetBuffer();
+        super.reset();
+    }
+
+    // Small writes (one NDJSON line each) are coalesced before deflating
+    private void write(byte[] b, int off, int len) throws IOException {
+        if (gzip == null && pendingCount + len > minBytes) {
+            startGzip();
+        }
+        if (pendingCount + len > pending.length) {
+            drain();
+        }
+        if (len > pending.length) {
+            deflate(b, off, len);
+        } else {
+            System.arraycopy(b, off, pending, pendingCount, len);
+            pendingCount += len;
+        }
+    }
+
+    private void flush() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (gzip != null) {
+            drain();
+            long start = CpuTime.now();
+            try {
+                gzip.flush();
+            } finally {
+                cpuNanos += CpuTime.now() - start;
+            }
+            getResponse().flushBuffer();
+        }
+    }
+
+    private void startGzip() throws IOException {
+        HttpServletResponse response = (HttpServletResponse) getResponse();
+        response.setHeader(HttpHeaders.CONTENT_ENCODING, "gzip");
+        encoded = new CountingOutputStream(response.getOutputStream());
+        long start = CpuTime.now();
+        gzip = new GZIPOutputStream(encoded, GZIP_BUFFER, true);
+        cpuNanos += CpuTime.now() - start;
+    }
+
+    private void drain() throws IOException {
+        if (pendingCount > 0) {
+            deflate(pending, 0, pendingCount);
+            pendingCount = 0;
+        }
+    }
+
+    private void deflate(byte[] b, int off, int len) throws IOException {
+        long start = CpuTime.now();
+        try {
+            gzip.write(b, off, len);
+        } finally {
+            cpuNanos += CpuTime.now() - start;
+        }
+        rawBytes += len;
+    }
+
+    /**
+     * Sends whatever is still held back and ends the gzip stream, then
+     * reports the body to the metrics.
+     */
+    void finish(PaymentMetrics paymentMetrics) throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (gzip != null) {
+            drain();
+            long start = CpuTime.now();
+            gzip.finish();
+            cpuNanos += CpuTime.now() - start;
+            paymentMetrics.compression(PaymentMetrics.Direction.RESPONSE, rawBytes, encoded.count, cpuNanos);
+        } else if (pendingCount > 0) {
+            HttpServletResponse response = (HttpServletResponse) getResponse();
+            if (!response.isCommitted()) {
+                response.setContentLength(pendingCount);
+            }
+            response.getOutputStream().write(pending, 0, pendingCount);
+            paymentMetrics.compressionSkipped();
+        }
+    }
+
+    private static final class CountingOutputStream extends FilterOutputStream {
+
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
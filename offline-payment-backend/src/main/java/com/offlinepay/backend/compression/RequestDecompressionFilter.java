@@ -0,0 +1,58 @@
+package com.offlinepay.backend.compression;
+
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Accepts gzip-encoded upload bodies (Content-Encoding: gzip) and hands them
+ * to the controllers inflated. Any other coding except identity is refused
+ * with 415 and an Accept-Encoding header naming gzip, as RFC 7694 suggests.
+ */
+public class RequestDecompressionFilter extends OncePerRequestFilter {
+
+    private final long maxInflatedBytes;
+    private final PaymentMetrics paymentMetrics;
+
+    public RequestDecompressionFilter(long maxInflatedBytes, PaymentMetrics paymentMetrics) {
+        this.maxInflatedBytes = maxInflatedBytes;
+        this.paymentMetrics = paymentMetrics;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+        if (encoding == null || encoding.isBlank() || "identity".equalsIgnoreCase(encoding.trim())) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String coding = encoding.trim();
+        if (!"gzip".equalsIgnoreCase(coding) && !"x-gzip".equalsIgnoreCase(coding)) {
+            // Written here rather than with sendError: the /error dispatch runs
+            // without the caller's authentication and would turn into a 403
+            response.setStatus(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value());
+            response.setHeader(HttpHeaders.ACCEPT_ENCODING, "gzip");
+            response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+            response.getWriter().write("Unsupported Content-Encoding: " + coding);
+            return;
+        }
+
+        GzipRequestWrapper inflated = new GzipRequestWrapper(request, maxInflatedBytes);
+        try {
+            filterChain.doFilter(inflated, response);
+        } finally {
+            inflated.complete(paymentMetrics);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.offlinepay.backend.compression;
+
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Gzips responses of at least minBytes for clients that send
+ * Accept-Encoding: gzip. Smaller bodies go out unchanged, since deflating a
+ * few hundred bytes costs more CPU than it saves on the wire.
+ *
+ * Streamed bodies (NDJSON history, streaming sync) are written from an async
+ * dispatch or flushed chunk by chunk; the gzip stream is kept across the
+ * dispatches and ended by the last one.
+ */
+public class ResponseCompressionFilter extends OncePerRequestFilter {
+
+    private static final String WRAPPER_ATTRIBUTE = ResponseCompressionFilter.class.getName() + ".wrapper";
+
+    private final int minBytes;
+    private final PaymentMetrics paymentMetrics;
+
+    public ResponseCompressionFilter(int minBytes, PaymentMetrics paymentMetrics) {
+        this.minBytes = minBytes;
+        this.paymentMetrics = paymentMetrics;
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        GzipResponseWrapper gzip = (GzipResponseWrapper) request.getAttribute(WRAPPER_ATTRIBUTE);
+        if (gzip == null) {
+            response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+            if (!acceptsGzip(request.getHeader(HttpHeaders.ACCEPT_ENCODING))) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+            gzip = new GzipResponseWrapper(response, minBytes);
+            request.setAttribute(WRAPPER_ATTRIBUTE, gzip);
+        }
+
+        filterChain.doFilter(request, gzip);
+        if (!request.isAsyncStarted()) {
+            gzip.finish(paymentMetrics);
+        }
+    }
+
+    // gzip, x-gzip or *, unless listed with q=0
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String entry : acceptEncoding.split(",")) {
+            String[] parts = entry.split(";");
+            String coding = parts[0].trim();
+            if (!coding.equalsIgnoreCase("gzip") && !coding.equalsIgnoreCase("x-gzip") && !coding.equals("*")) {
+                continue;
+            }
+            if (!isZeroQuality(parts)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isZeroQuality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.startsWith("q=") || parameter.startsWith("Q=")) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim()) == 0;
+                } catch (NumberFormatException e) {
+                    return false;
+                }
+            }
+        }
+        return false;
+    }
+}
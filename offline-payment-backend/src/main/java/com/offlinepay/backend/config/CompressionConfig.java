@@ -0,0 +1,42 @@
+package com.offlinepay.backend.config;
+
+import com.offlinepay.backend.compression.RequestDecompressionFilter;
+import com.offlinepay.backend.compression.ResponseCompressionFilter;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Gzip on the bulk endpoints: compressed sync uploads are accepted, and sync
+ * results and transaction history are compressed for clients that ask.
+ * Thresholds come from offlinepay.compression.*; ratio and CPU cost are
+ * reported as http.compression.* metrics.
+ */
+@Configuration
+public class CompressionConfig {
+
+    @Bean
+    public FilterRegistrationBean<ResponseCompressionFilter> responseCompressionFilter(PaymentMetrics paymentMetrics,
+            @Value("${offlinepay.compression.min-response-bytes:1024}") int minResponseBytes) {
+        FilterRegistrationBean<ResponseCompressionFilter> registration = new FilterRegistrationBean<>(
+                new ResponseCompressionFilter(minResponseBytes, paymentMetrics));
+        registration.addUrlPatterns("/api/transaction/history", "/api/offline-transaction/sync",
+                "/api/offline-transaction/sync/*");
+        // Outside Server-Timing, whose buffered body must reach it uncompressed
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 1);
+        return registration;
+    }
+
+    @Bean
+    public FilterRegistrationBean<RequestDecompressionFilter> requestDecompressionFilter(PaymentMetrics paymentMetrics,
+            @Value("${offlinepay.compression.max-request-bytes:268435456}") long maxRequestBytes) {
+        FilterRegistrationBean<RequestDecompressionFilter> registration = new FilterRegistrationBean<>(
+                new RequestDecompressionFilter(maxRequestBytes, paymentMetrics));
+        registration.addUrlPatterns("/api/offline-transaction/sync");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 2);
+        return registration;
+    }
+}
@@ -0,0 +1,10 @@
+package com.offlinepay.backend.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+// Background jobs: ledger snapshots and reconciliation
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
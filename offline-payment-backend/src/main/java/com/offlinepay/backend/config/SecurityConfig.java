@@ -1,5 +1,7 @@
 package com.offlinepay.backend.config;
 
+import com.offlinepay.backend.controller.TransactionController;
+import com.offlinepay.backend.metrics.ServerTimingFilter;
 import com.offlinepay.backend.security.JwtAuthenticationFilter;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -42,6 +44,8 @@ public class SecurityConfig {
                 .cors(Customizer.withDefaults())
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
+                        // Served on the separate management port in production
+                        .requestMatchers("/actuator/health", "/actuator/prometheus").permitAll()
                         .anyRequest().authenticated()
                 )
                 .sessionManagement(session ->
@@ -73,6 +77,11 @@ public class SecurityConfig {
 
         configuration.setAllowedHeaders(List.of("*"));
 
+        // Let browser clients read the history pagination cursor and the
+        // opt-in timing breakdown
+        configuration.setExposedHeaders(List.of(TransactionController.NEXT_CURSOR_HEADER,
+                ServerTimingFilter.RESPONSE_HEADER));
+
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source =
@@ -0,0 +1,31 @@
+package com.offlinepay.backend.config;
+
+import com.offlinepay.backend.metrics.ServerTimingFilter;
+import com.offlinepay.backend.security.JwtService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.util.Set;
+
+/**
+ * Registers the opt-in Server-Timing diagnostics on the payment endpoints.
+ * Callers are allow-listed with offlinepay.server-timing.allowed-users.
+ */
+@Configuration
+public class ServerTimingConfig {
+
+    @Bean
+    public FilterRegistrationBean<ServerTimingFilter> serverTimingFilter(JwtService jwtService,
+            @Value("${offlinepay.server-timing.allowed-users:}") Set<String> allowedUsers) {
+        FilterRegistrationBean<ServerTimingFilter> registration =
+                new FilterRegistrationBean<>(new ServerTimingFilter(jwtService, allowedUsers));
+        registration.addUrlPatterns("/api/offline-transaction/*", "/api/transaction/*", "/api/wallet/*");
+        // Outside Spring Security so the auth filter falls inside the trace,
+        // but behind the virtual-thread request cap and the gzip filters
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 3);
+        return registration;
+    }
+}
@@ -0,0 +1,83 @@
+package com.offlinepay.backend.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadPoolExecutor;
+
+// With spring.threads.virtual.enabled=true on Java 21+ the I/O-bound executors
+// below run each task on a virtual thread. A concurrency limit then takes the
+// place of the pool size, so they still cannot open more database work at
+// once than the Hikari pool can serve; when the limit is reached the
+// submitting thread blocks, which throttles like CallerRunsPolicy does.
+@Configuration
+public class SyncExecutorConfig {
+
+    // Bounded pool used by the offline sync engine. When the queue is full the
+    // submitting request thread runs the group itself, which throttles uploads
+    // instead of dropping them.
+    @Bean(name = "syncExecutor")
+    public AsyncTaskExecutor syncExecutor(Environment environment,
+            @Value("${offlinepay.sync.threads:0}") int threads,
+            @Value("${offlinepay.sync.queue-capacity:256}") int queueCapacity,
+            @Value("${offlinepay.virtual-threads.db-concurrency:${spring.datasource.hikari.maximum-pool-size:10}}") int dbConcurrency) {
+
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualThreadExecutor("offline-sync-", dbConcurrency);
+        }
+
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("offline-sync-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    // ForkJoin pool for CPU-bound signature checks, kept apart from the common
+    // pool so batch verification cannot starve other parallel streams. Stays
+    // on platform threads in every mode: virtual threads do not help CPU work.
+    @Bean(name = "verificationPool", destroyMethod = "shutdown")
+    public ForkJoinPool verificationPool(@Value("${offlinepay.sync.verify-threads:0}") int threads) {
+        return new ForkJoinPool(threads > 0 ? threads : Runtime.getRuntime().availableProcessors());
+    }
+
+    // Workers for asynchronous sync jobs. SyncJobWorker hands out at most
+    // 'workers' jobs at a time, so the queue never fills.
+    @Bean(name = "syncJobExecutor")
+    public AsyncTaskExecutor syncJobExecutor(Environment environment,
+            @Value("${offlinepay.sync-jobs.workers:2}") int workers) {
+        if (Threading.VIRTUAL.isActive(environment)) {
+            return virtualThreadExecutor("sync-job-", workers);
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(workers);
+        executor.setMaxPoolSize(workers);
+        executor.setQueueCapacity(workers);
+        executor.setThreadNamePrefix("sync-job-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.initialize();
+        return executor;
+    }
+
+    private static SimpleAsyncTaskExecutor virtualThreadExecutor(String threadNamePrefix, int concurrencyLimit) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(concurrencyLimit);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
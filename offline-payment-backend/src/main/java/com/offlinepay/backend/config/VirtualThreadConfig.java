@@ -0,0 +1,53 @@
+package com.offlinepay.backend.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+/**
+ * Guard rails for virtual-thread mode (spring.threads.virtual.enabled=true,
+ * Java 21+). Spring Boot switches Tomcat request handling and the scheduler
+ * to virtual threads, and SyncExecutorConfig switches the sync executors.
+ * This adds the request cap that the Tomcat thread pool used to provide.
+ *
+ * Pinning: shared caches use ReentrantLock (see LruCache), not synchronized.
+ * Run with -Djdk.tracePinnedThreads=short to report any pinning that remains
+ * in libraries.
+ */
+@Slf4j
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<ConcurrencyLimitFilter> concurrencyLimitFilter(
+            @Value("${offlinepay.virtual-threads.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${offlinepay.virtual-threads.max-wait-ms:2000}") long maxWaitMs,
+            @Value("${spring.datasource.hikari.maximum-pool-size:10}") int connectionPoolSize,
+            MeterRegistry meterRegistry) {
+        log.info("Virtual threads enabled: at most {} concurrent requests (wait {} ms) over {} database connections",
+                maxConcurrentRequests, maxWaitMs, connectionPoolSize);
+
+        ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(maxConcurrentRequests, maxWaitMs);
+        Gauge.builder("http.server.requests.inflight", filter, ConcurrencyLimitFilter::inFlight)
+                .register(meterRegistry);
+        Gauge.builder("http.server.requests.waiting", filter, ConcurrencyLimitFilter::waiting)
+                .register(meterRegistry);
+        FunctionCounter.builder("http.server.requests.shed", filter, ConcurrencyLimitFilter::rejectedCount)
+                .description("Requests answered 503 because no slot freed up in time")
+                .register(meterRegistry);
+
+        FilterRegistrationBean<ConcurrencyLimitFilter> registration = new FilterRegistrationBean<>(filter);
+        // Ahead of security and everything else, so waiting requests hold nothing
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE);
+        return registration;
+    }
+}
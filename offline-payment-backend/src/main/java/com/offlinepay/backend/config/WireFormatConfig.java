@@ -0,0 +1,19 @@
+package com.offlinepay.backend.config;
+
+import com.offlinepay.backend.codec.OfflineBatchMessageConverter;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.lang.NonNull;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+// Binary offline sync batches (OfflineBatchCodec) alongside JSON
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(@NonNull List<HttpMessageConverter<?>> converters) {
+        converters.add(new OfflineBatchMessageConverter());
+    }
+}
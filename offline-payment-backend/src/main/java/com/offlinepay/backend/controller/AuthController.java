@@ -1,15 +1,16 @@
 package com.offlinepay.backend.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import com.offlinepay.backend.security.AuthenticatedUser;
 import com.offlinepay.backend.service.AuthService;
 import com.offlinepay.backend.dto.*;
 
 @RestController
 @RequestMapping("/api/auth")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
 public class AuthController {
 
     private final AuthService authService;
@@ -36,8 +37,8 @@ public class AuthController {
 
     @PostMapping("/public-key")
     public String savePublicKey(@RequestBody PublicKeyRequest request,
-            org.springframework.security.core.Authentication authentication) {
-        authService.savePublicKey(authentication.getName(), request.getPublicKey());
+            @AuthenticationPrincipal AuthenticatedUser user) {
+        authService.savePublicKey(user.userId(), request.getPublicKey());
         return "Public key saved successfully";
     }
 }
\ No newline at end of file
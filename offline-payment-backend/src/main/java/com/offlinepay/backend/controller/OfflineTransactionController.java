@@ -1,22 +1,38 @@
 package com.offlinepay.backend.controller;
 
 import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncJobResponse;
+import com.offlinepay.backend.dto.SyncResult;
 import com.offlinepay.backend.entity.OfflineTransaction;
+import com.offlinepay.backend.security.AuthenticatedUser;
+import com.offlinepay.backend.service.OfflineSyncEngine;
 import com.offlinepay.backend.service.OfflineTransactionService;
+import com.offlinepay.backend.service.StreamingSyncService;
+import com.offlinepay.backend.service.SyncJobService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.net.URI;
 import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/offline-transaction")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
 public class OfflineTransactionController {
 
+    private static final String NDJSON = "application/x-ndjson";
+
     private final OfflineTransactionService offlineTransactionService;
+    private final OfflineSyncEngine offlineSyncEngine;
+    private final SyncJobService syncJobService;
+    private final StreamingSyncService streamingSyncService;
 
     // This endpoint is used when the receiver scans the QR code and has internet
     @PostMapping("/verify")
@@ -30,14 +46,50 @@ public class OfflineTransactionController {
     }
 
     // This endpoint is used for syncing offline transactions when network is
-    // restored
+    // restored. Returns one result per submitted nonce, in submission order.
     @PostMapping("/sync")
     public ResponseEntity<?> syncOfflineTransactions(@Valid @RequestBody List<OfflineTransactionRequest> transactions) {
         try {
-            offlineTransactionService.syncOfflineTransactions(transactions);
-            return ResponseEntity.ok("Synced successfully");
+            List<SyncResult> results = offlineSyncEngine.syncOfflineTransactions(transactions);
+            return ResponseEntity.ok(results);
         } catch (Exception e) {
             return ResponseEntity.badRequest().body("Sync failed: " + e.getMessage());
         }
     }
+
+    // Async variant for large uploads: stages the batch and returns 202 with a
+    // job id right away. Poll GET /sync/{jobId} for progress and outcomes.
+    @PostMapping(value = "/sync", params = "async=true")
+    public ResponseEntity<?> submitSyncJob(@AuthenticationPrincipal AuthenticatedUser principal,
+            @Valid @RequestBody List<OfflineTransactionRequest> transactions) {
+        try {
+            SyncJobResponse job = syncJobService.submit(principal.userId(), transactions);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/offline-transaction/sync/" + job.getJobId()))
+                    .body(job);
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body("Sync failed: " + e.getMessage());
+        }
+    }
+
+    // Streaming variant for very large arrays: the body is parsed and applied
+    // in chunks without holding the whole batch, and results come back as
+    // NDJSON, one line per submitted item, flushed after every chunk.
+    @PostMapping(value = "/sync", params = "stream=true")
+    public void streamSyncOfflineTransactions(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        response.setContentType(NDJSON);
+        streamingSyncService.sync(request.getInputStream(), response.getOutputStream());
+    }
+
+    // Progress plus one page of outcomes; follow nextOffset for the rest
+    @GetMapping("/sync/{jobId}")
+    public ResponseEntity<?> getSyncJob(@AuthenticationPrincipal AuthenticatedUser principal,
+            @PathVariable UUID jobId,
+            @RequestParam(required = false) Integer offset,
+            @RequestParam(required = false) Integer limit) {
+        return syncJobService.getJob(jobId, principal.userId(), offset, limit)
+                .<ResponseEntity<?>>map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
 }
@@ -1,43 +1,66 @@
 package com.offlinepay.backend.controller;
 
+import com.offlinepay.backend.dto.TransactionHistoryPage;
 import com.offlinepay.backend.dto.TransactionRequest;
 import com.offlinepay.backend.entity.Transaction;
+import com.offlinepay.backend.security.AuthenticatedUser;
 import com.offlinepay.backend.service.TransactionService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.util.UUID;
 
 @RestController
 @RequestMapping("/api/transaction")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
 public class TransactionController {
 
+    public static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final String NDJSON = "application/x-ndjson";
+
     private final TransactionService transactionService;
 
     @PostMapping("/send")
-    public ResponseEntity<?> sendMoney(@Valid @RequestBody TransactionRequest request, Authentication authentication) {
+    public ResponseEntity<?> sendMoney(@Valid @RequestBody TransactionRequest request,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            Transaction transaction = transactionService.processOnlineTransaction(email, request);
-            return ResponseEntity.ok(transaction);
+            Transaction transaction = transactionService.processOnlineTransaction(user, request);
+            return ResponseEntity.ok(transactionService.describe(transaction));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
 
+    // Newest first, one keyset page at a time. The cursor for the next page is
+    // returned in the X-Next-Cursor header (absent on the last page).
     @GetMapping("/history")
-    public ResponseEntity<?> getTransactionHistory(Authentication authentication) {
+    public ResponseEntity<?> getTransactionHistory(@RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @AuthenticationPrincipal AuthenticatedUser user) {
         try {
-            String email = authentication.getName();
-            List<Transaction> transactions = transactionService.getUserTransactions(email);
-            return ResponseEntity.ok(transactions);
+            TransactionHistoryPage page = transactionService.getUserTransactions(user.userId(), cursor, limit);
+            ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+            if (page.getNextCursor() != null) {
+                response.header(NEXT_CURSOR_HEADER, page.getNextCursor());
+            }
+            return response.body(page.getItems());
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
     }
+
+    // Full history as newline-delimited JSON, streamed from a DB cursor
+    @GetMapping(value = "/history", produces = NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamTransactionHistory(@AuthenticationPrincipal AuthenticatedUser user) {
+        UUID userId = user.userId();
+        StreamingResponseBody body = out -> transactionService.streamUserTransactions(userId, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
 }
@@ -1,41 +1,71 @@
 package com.offlinepay.backend.controller;
 
+import com.offlinepay.backend.blob.BlobStore;
+import com.offlinepay.backend.dto.UserProfile;
 import com.offlinepay.backend.dto.UserProfileRequest;
 import com.offlinepay.backend.entity.User;
 import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.security.AuthenticatedUser;
+import com.offlinepay.backend.service.ProfilePictureService;
+import com.offlinepay.backend.service.ProfilePictureService.ProfilePicture;
+import com.offlinepay.backend.service.UserSummaryCache;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.core.Authentication;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/user")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
 public class UserController {
 
+    // Tomcat serves the file with sendfile(2) when these request attributes are set
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
     private final UserRepository userRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final ProfilePictureService profilePictureService;
+    private final BlobStore blobStore;
 
     @GetMapping("/profile")
-    public ResponseEntity<?> getProfile(Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
+    public ResponseEntity<?> getProfile(@AuthenticationPrincipal AuthenticatedUser principal) {
+        UserProfile profile = userRepository.findProfileById(principal.userId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
-        return ResponseEntity.ok(user);
+        return ResponseEntity.ok(profile);
     }
 
     @PutMapping("/profile")
-    public ResponseEntity<?> updateProfile(@RequestBody UserProfileRequest request, Authentication authentication) {
-        String email = authentication.getName();
-        User user = userRepository.findByEmail(email)
+    public ResponseEntity<?> updateProfile(@RequestBody UserProfileRequest request,
+            @AuthenticationPrincipal AuthenticatedUser principal) {
+        User user = userRepository.findById(principal.userId())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
         if (request.getName() != null)
             user.setName(request.getName());
         if (request.getContact() != null)
             user.setContact(request.getContact());
-        if (request.getProfilePic() != null)
-            user.setProfilePic(request.getProfilePic());
+        // Older clients still send the picture inline; it goes to the blob store
+        if (request.getProfilePic() != null && !request.getProfilePic().isBlank()) {
+            try {
+                user.setProfilePicHash(profilePictureService.storeEncoded(request.getProfilePic()));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }
         if (request.getBankAccountNumber() != null)
             user.setBankAccountNumber(request.getBankAccountNumber());
         if (request.getBankIfsc() != null)
@@ -44,6 +74,54 @@ public class UserController {
             user.setBankName(request.getBankName());
 
         userRepository.save(user);
-        return ResponseEntity.ok(user);
+        userSummaryCache.invalidate(user.getId());
+        return ResponseEntity.ok(UserProfile.of(user));
+    }
+
+    // Raw image bytes in the body, streamed to the blob store without buffering
+    @PutMapping(value = "/profile/picture", consumes = { "image/png", "image/jpeg", "image/gif", "image/webp" })
+    public ResponseEntity<?> uploadProfilePicture(@AuthenticationPrincipal AuthenticatedUser principal,
+            HttpServletRequest request) {
+        try {
+            String hash = profilePictureService.upload(principal.userId(), request.getInputStream());
+            return ResponseEntity.ok().eTag(hash).body(Map.of("profilePicHash", hash));
+        } catch (Exception e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ETag is the content hash: a client holding the current picture gets 304
+    @GetMapping("/profile/picture")
+    public void downloadProfilePicture(@AuthenticationPrincipal AuthenticatedUser principal,
+            HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Optional<ProfilePicture> found = profilePictureService.find(principal.userId());
+        if (found.isEmpty()) {
+            response.setStatus(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        ProfilePicture picture = found.get();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "private, no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + picture.hash() + "\"")) {
+            return;
+        }
+
+        if (picture.contentType() != null) {
+            response.setContentType(picture.contentType());
+        } else {
+            // Migrated legacy content that is not a known image: never rendered inline
+            response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+            response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "attachment");
+        }
+        response.setContentLengthLong(picture.size());
+        // Only the sendfile path is zero-copy. The fallback (no local file, or a
+        // container without sendfile) copies through the servlet output stream
+        Optional<Path> file = blobStore.localFile(picture.hash());
+        if (file.isPresent() && Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.get().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, picture.size());
+        } else {
+            blobStore.transferTo(picture.hash(), Channels.newChannel(response.getOutputStream()));
+        }
     }
 }
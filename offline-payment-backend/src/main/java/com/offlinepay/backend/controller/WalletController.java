@@ -1,33 +1,36 @@
 package com.offlinepay.backend.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import java.math.BigDecimal;
 
+import com.offlinepay.backend.security.AuthenticatedUser;
 import com.offlinepay.backend.service.WalletService;
 
 @RestController
 @RequestMapping("/api/wallet")
 @RequiredArgsConstructor
-@CrossOrigin(origins = "*")
 public class WalletController {
 
     private final WalletService walletService;
 
+    // The wallet is always the caller's own, taken from the token. An email
+    // query parameter sent by older clients is ignored.
     @GetMapping("/balance")
-    public BigDecimal getBalance(@RequestParam String email) {
-        return walletService.getBalance(email);
+    public BigDecimal getBalance(@AuthenticationPrincipal AuthenticatedUser user) {
+        return walletService.getBalance(user);
     }
 
     @PostMapping("/add")
-    public String addMoney(@RequestParam String email,
+    public String addMoney(@AuthenticationPrincipal AuthenticatedUser user,
             @RequestParam BigDecimal amount) {
-        return walletService.addMoney(email, amount);
+        return walletService.addMoney(user, amount);
     }
 
     @PostMapping("/withdraw")
-    public String withdrawMoney(@RequestParam String email,
+    public String withdrawMoney(@AuthenticationPrincipal AuthenticatedUser user,
             @RequestParam BigDecimal amount) {
-        return walletService.withdrawMoney(email, amount);
+        return walletService.withdrawMoney(user, amount);
     }
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.offlinepay.backend.dto;
+
+import com.offlinepay.backend.entity.SyncJobStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncJobResponse {
+    private UUID jobId;
+    private SyncJobStatus status;
+    private int total;
+    private int processed;
+    private int applied;
+    private int duplicates;
+    private int rejected;
+    private int offset;         // index of the first item in results
+    private Integer nextOffset; // offset of the next page, null when caught up
+    private List<SyncResult> results; // one page of processed items in submission order
+}
@@ -0,0 +1,7 @@
+package com.offlinepay.backend.dto;
+
+public enum SyncOutcome {
+    APPLIED,
+    DUPLICATE,
+    REJECTED
+}
@@ -0,0 +1,26 @@
+package com.offlinepay.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SyncResult {
+    private String nonce;
+    private SyncOutcome outcome;
+    private String reason;
+
+    public static SyncResult applied(String nonce) {
+        return new SyncResult(nonce, SyncOutcome.APPLIED, null);
+    }
+
+    public static SyncResult duplicate(String nonce) {
+        return new SyncResult(nonce, SyncOutcome.DUPLICATE, "Nonce already synced");
+    }
+
+    public static SyncResult rejected(String nonce, String reason) {
+        return new SyncResult(nonce, SyncOutcome.REJECTED, reason);
+    }
+}
@@ -0,0 +1,48 @@
+package com.offlinepay.backend.dto;
+
+import com.offlinepay.backend.entity.TransactionStatus;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Read-only view of a transaction for history listings, built directly by the
+// query so no Transaction or User entities are loaded. Keeps the same JSON
+// shape as the Transaction entity for the fields clients use.
+@Data
+@NoArgsConstructor
+public class TransactionHistoryItem {
+
+    private UUID id;
+    private Party sender;
+    private Party receiver;
+    private BigDecimal amount;
+    private TransactionStatus status;
+    private String transactionType;
+    private LocalDateTime createdAt;
+
+    public TransactionHistoryItem(UUID id,
+            UUID senderId, String senderName, String senderEmail,
+            UUID receiverId, String receiverName, String receiverEmail,
+            BigDecimal amount, TransactionStatus status, String transactionType, LocalDateTime createdAt) {
+        this.id = id;
+        this.sender = new Party(senderId, senderName, senderEmail);
+        this.receiver = new Party(receiverId, receiverName, receiverEmail);
+        this.amount = amount;
+        this.status = status;
+        this.transactionType = transactionType;
+        this.createdAt = createdAt;
+    }
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class Party {
+        private UUID id;
+        private String name;
+        private String email;
+    }
+}
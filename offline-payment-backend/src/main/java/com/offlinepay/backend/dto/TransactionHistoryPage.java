@@ -0,0 +1,14 @@
+package com.offlinepay.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class TransactionHistoryPage {
+    private List<TransactionHistoryItem> items;
+    // Opaque keyset cursor for the next page, null on the last page
+    private String nextCursor;
+}
@@ -0,0 +1,18 @@
+package com.offlinepay.backend.dto;
+
+import com.offlinepay.backend.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// What /user/profile returns. Built directly by the query for GET, so the
+// public key and the other columns the profile does not show are not read.
+public record UserProfile(UUID id, String name, String email, String contact, String profilePicHash,
+        String bankAccountNumber, String bankIfsc, String bankName, LocalDateTime createdAt) {
+
+    public static UserProfile of(User user) {
+        return new UserProfile(user.getId(), user.getName(), user.getEmail(), user.getContact(),
+                user.getProfilePicHash(), user.getBankAccountNumber(), user.getBankIfsc(), user.getBankName(),
+                user.getCreatedAt());
+    }
+}
@@ -0,0 +1,8 @@
+package com.offlinepay.backend.dto;
+
+import java.util.UUID;
+
+// The user columns the payment paths need. Built directly by the query, so
+// the TEXT columns (public key, profile picture) are never read.
+public record UserSummary(UUID id, String name, String email) {
+}
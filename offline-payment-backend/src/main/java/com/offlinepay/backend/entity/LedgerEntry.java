@@ -0,0 +1,42 @@
+package com.offlinepay.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Immutable ledger line. Every posting writes one negative (debit) and one
+// positive (credit) entry sharing a postingId, so each posting sums to zero.
+@Entity
+@Table(name = "ledger_entries", indexes = {
+        // Snapshot + delta reads: entries of one account after a given id
+        @Index(name = "idx_ledger_entries_account_id", columnList = "account_id, id")
+})
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerEntry {
+
+    // Assigned by the database at insert time, after the wallet row is locked
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private UUID accountId; // wallet owner's user id, or LedgerService.EXTERNAL_ACCOUNT
+
+    @Column(nullable = false)
+    private UUID postingId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount; // signed: negative = debit, positive = credit
+
+    @Column(nullable = false)
+    private String entryType; // TRANSFER, DEPOSIT or WITHDRAWAL
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,32 @@
+package com.offlinepay.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Ledger balance of one account as of lastEntryId. The current balance is
+// this plus the sum of the account's entries with a greater id.
+@Entity
+@Table(name = "ledger_snapshots")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class LedgerSnapshot {
+
+    @Id
+    private UUID accountId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+
+    @Column(nullable = false)
+    private Long lastEntryId;
+
+    @Column(nullable = false)
+    private LocalDateTime takenAt;
+}
@@ -0,0 +1,56 @@
+package com.offlinepay.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// One asynchronous sync upload. Items live in sync_job_items; nextIndex is
+// the first item not yet processed, so a job resumes from there after a
+// restart or when another instance takes over an expired lease.
+@Entity
+@Table(name = "sync_jobs", indexes = {
+        @Index(name = "idx_sync_jobs_status_created", columnList = "status, createdAt")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncJob {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(nullable = false)
+    private UUID submittedBy;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false)
+    private SyncJobStatus status;
+
+    @Column(nullable = false)
+    private int total;
+
+    @Column(nullable = false)
+    private int nextIndex;
+
+    @Column(nullable = false)
+    private int applied;
+
+    @Column(nullable = false)
+    private int duplicates;
+
+    @Column(nullable = false)
+    private int rejected;
+
+    // A RUNNING job whose lease has expired may be claimed by any worker
+    private LocalDateTime leaseUntil;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    private LocalDateTime completedAt;
+}
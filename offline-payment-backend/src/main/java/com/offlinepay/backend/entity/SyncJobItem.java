@@ -0,0 +1,51 @@
+package com.offlinepay.backend.entity;
+
+import com.offlinepay.backend.dto.SyncOutcome;
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Staged offline payment of a sync job; outcome is null until processed
+@Entity
+@Table(name = "sync_job_items", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_sync_job_items_job_index", columnNames = { "job_id", "item_index" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SyncJobItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "job_id", nullable = false)
+    private UUID jobId;
+
+    @Column(nullable = false)
+    private int itemIndex;
+
+    @Column(nullable = false)
+    private UUID senderId;
+
+    @Column(nullable = false)
+    private UUID receiverId;
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal amount;
+
+    @Column(nullable = false)
+    private String nonce;
+
+    @Column(nullable = false, length = 1000)
+    private String signature;
+
+    @Enumerated(EnumType.STRING)
+    private SyncOutcome outcome;
+
+    private String reason;
+}
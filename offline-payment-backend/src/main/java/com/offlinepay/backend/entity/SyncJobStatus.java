@@ -0,0 +1,7 @@
+package com.offlinepay.backend.entity;
+
+public enum SyncJobStatus {
+    PENDING,
+    RUNNING,
+    COMPLETED
+}
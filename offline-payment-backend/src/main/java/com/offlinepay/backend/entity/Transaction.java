@@ -9,7 +9,11 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
-@Table(name = "transactions")
+@Table(name = "transactions", indexes = {
+        // Keyset pagination of history: (user, createdAt desc, id desc)
+        @Index(name = "idx_transactions_sender_created", columnList = "sender_id, createdAt, id"),
+        @Index(name = "idx_transactions_receiver_created", columnList = "receiver_id, createdAt, id")
+})
 @Getter
 @Setter
 @NoArgsConstructor
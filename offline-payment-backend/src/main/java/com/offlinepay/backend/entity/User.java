@@ -45,14 +45,18 @@ public class User {
     @Column(name = "reset_token_expiry")
     private LocalDateTime resetTokenExpiry;
 
+    // Loaded with the entity. Paths that do not need the key read users
+    // through the UserRepository projections (summary, credentials) and the
+    // key alone through findPublicKeyById
     @Column(name = "public_key", columnDefinition = "TEXT")
     private String publicKey;
 
     @Column(name = "contact", length = 50)
     private String contact;
 
-    @Column(name = "profile_pic", columnDefinition = "TEXT")
-    private String profilePic;
+    // SHA-256 of the picture in the blob store (see ProfilePictureService)
+    @Column(name = "profile_pic_hash", length = 64)
+    private String profilePicHash;
 
     @Column(name = "bank_account_number", length = 50)
     private String bankAccountNumber;
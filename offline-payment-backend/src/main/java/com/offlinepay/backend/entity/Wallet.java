@@ -28,4 +28,8 @@ public class Wallet {
     private BigDecimal balance;
 
     private LocalDateTime lastSyncedAt;
+
+    // Hot-wallet striping: null or 1 = plain wallet. Otherwise this row is
+    // stripe 0 and wallet_stripes holds stripes 1..stripeCount-1.
+    private Integer stripeCount;
 }
\ No newline at end of file
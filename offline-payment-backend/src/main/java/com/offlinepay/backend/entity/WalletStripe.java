@@ -0,0 +1,34 @@
+package com.offlinepay.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Extra sub-balance of a striped hot wallet. Credits spread over the stripes
+// so concurrent receivers do not all queue on the wallet row.
+@Entity
+@Table(name = "wallet_stripes", uniqueConstraints = {
+        @UniqueConstraint(name = "uk_wallet_stripes_user_stripe", columnNames = { "user_id", "stripe_index" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WalletStripe {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "stripe_index", nullable = false)
+    private int stripeIndex; // 1..stripeCount-1; stripe 0 is the wallet row
+
+    @Column(nullable = false, precision = 19, scale = 2)
+    private BigDecimal balance;
+}
@@ -0,0 +1,16 @@
+package com.offlinepay.backend.exception;
+
+import lombok.Getter;
+
+// Thrown when a payment is refused for a business reason (replay, bad signature, ...)
+// so callers can tell rejections apart without parsing messages.
+@Getter
+public class PaymentRejectedException extends RuntimeException {
+
+    private final RejectionReason reason;
+
+    public PaymentRejectedException(RejectionReason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+}
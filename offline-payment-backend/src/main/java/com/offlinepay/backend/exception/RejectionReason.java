@@ -0,0 +1,14 @@
+package com.offlinepay.backend.exception;
+
+public enum RejectionReason {
+    REPLAY,
+    SENDER_NOT_FOUND,
+    RECEIVER_NOT_FOUND,
+    SELF_TRANSFER,
+    BAD_SIGNATURE,
+    SENDER_WALLET_NOT_FOUND,
+    RECEIVER_WALLET_NOT_FOUND,
+    // A wallet missing on a single-wallet operation (deposit, withdrawal)
+    WALLET_NOT_FOUND,
+    INSUFFICIENT_BALANCE
+}
@@ -0,0 +1,87 @@
+package com.offlinepay.backend.metrics;
+
+import com.offlinepay.backend.security.JwtService;
+import com.offlinepay.backend.security.PublicKeyCache;
+import com.offlinepay.backend.service.BalanceCache;
+import com.offlinepay.backend.service.LedgerReconciliationJob;
+import com.offlinepay.backend.service.NonceIndex;
+import com.offlinepay.backend.service.TransactionLogBatcher;
+import com.offlinepay.backend.service.UserSummaryCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// Publishes the counters the caches, nonce index, log batcher and ledger keep
+// internally. Values are read at scrape time; nothing is added to the hot path.
+@Component
+@RequiredArgsConstructor
+public class ComponentMetricsBinder implements MeterBinder {
+
+    private final PublicKeyCache publicKeyCache;
+    private final JwtService jwtService;
+    private final BalanceCache balanceCache;
+    private final UserSummaryCache userSummaryCache;
+    private final NonceIndex nonceIndex;
+    private final TransactionLogBatcher transactionLogBatcher;
+    private final LedgerReconciliationJob ledgerReconciliationJob;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        // Caches, in Micrometer's cache.gets / cache.size naming
+        FunctionCounter.builder("cache.gets", publicKeyCache, PublicKeyCache::hitCount)
+                .tag("cache", "public_keys").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", publicKeyCache, PublicKeyCache::missCount)
+                .tag("cache", "public_keys").tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", publicKeyCache, PublicKeyCache::size)
+                .tag("cache", "public_keys").register(registry);
+
+        FunctionCounter.builder("cache.gets", jwtService, JwtService::cacheHitCount)
+                .tag("cache", "jwt_claims").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", jwtService, JwtService::cacheMissCount)
+                .tag("cache", "jwt_claims").tag("result", "miss").register(registry);
+
+        FunctionCounter.builder("cache.gets", balanceCache, BalanceCache::hitCount)
+                .tag("cache", "balances").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", balanceCache, BalanceCache::missCount)
+                .tag("cache", "balances").tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", balanceCache, BalanceCache::size)
+                .tag("cache", "balances").register(registry);
+
+        FunctionCounter.builder("cache.gets", userSummaryCache, UserSummaryCache::hitCount)
+                .tag("cache", "user_summaries").tag("result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", userSummaryCache, UserSummaryCache::missCount)
+                .tag("cache", "user_summaries").tag("result", "miss").register(registry);
+        Gauge.builder("cache.size", userSummaryCache, UserSummaryCache::size)
+                .tag("cache", "user_summaries").register(registry);
+
+        // Replay protection: how each nonce check was answered
+        FunctionCounter.builder("nonce.index.checks", nonceIndex, NonceIndex::recentHitCount)
+                .tag("answered_by", "recent").register(registry);
+        FunctionCounter.builder("nonce.index.checks", nonceIndex, NonceIndex::filterNegativeCount)
+                .tag("answered_by", "filter").register(registry);
+        FunctionCounter.builder("nonce.index.checks", nonceIndex, NonceIndex::databaseCheckCount)
+                .tag("answered_by", "database").register(registry);
+        FunctionCounter.builder("nonce.index.false.positives", nonceIndex, NonceIndex::falsePositiveCount)
+                .register(registry);
+        Gauge.builder("nonce.index.false.positive.rate", nonceIndex, NonceIndex::observedFalsePositiveRate)
+                .tag("kind", "observed").register(registry);
+        Gauge.builder("nonce.index.false.positive.rate", nonceIndex, NonceIndex::expectedFalsePositiveRate)
+                .tag("kind", "expected").register(registry);
+        Gauge.builder("nonce.index.memory", nonceIndex, NonceIndex::memoryBytes)
+                .baseUnit("bytes").register(registry);
+
+        // Per-transaction log batches
+        FunctionCounter.builder("transaction.log.rows.written", transactionLogBatcher, TransactionLogBatcher::writtenCount)
+                .register(registry);
+        FunctionCounter.builder("transaction.log.batches", transactionLogBatcher, TransactionLogBatcher::batchCount)
+                .register(registry);
+
+        Gauge.builder("ledger.reconciliation.mismatches", ledgerReconciliationJob,
+                job -> job.lastReport() == null ? 0 : job.lastReport().mismatched())
+                .description("Wallets whose balance disagreed with the ledger in the last reconciliation")
+                .register(registry);
+    }
+}
@@ -0,0 +1,190 @@
+package com.offlinepay.backend.metrics;
+
+import com.offlinepay.backend.dto.SyncOutcome;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.RequestTiming.Span;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Micrometer meters for the payment path, scraped from /actuator/prometheus.
+ *
+ * payment.stage.duration{stage} times every step of a payment with a
+ * percentile histogram, so the stage that dominates p99 can be read off
+ * directly. payment.rejections{channel,reason} counts refused payments, and
+ * the sync.* meters describe batch uploads. http.compression.* reports gzip
+ * ratio and CPU cost on the sync and history endpoints. All meters are
+ * registered up front; recording is a map lookup and an update, no per-call
+ * allocation.
+ */
+@Component
+public class PaymentMetrics {
+
+    // The span each stage also feeds in a traced request's Server-Timing
+    // header. Stages that wrap repository calls have none: those calls are
+    // already timed as "db" by RepositoryTimingPostProcessor.
+    public enum Stage {
+        NONCE_CHECK(null),
+        USER_LOOKUP(null),
+        SIGNATURE_VERIFY(Span.CRYPTO),
+        WALLET_DEBIT(null),
+        WALLET_CREDIT(null),
+        LEDGER_POST(Span.DB),
+        LOG_INSERT(null),
+        JWT_VALIDATE(Span.AUTH),
+        SYNC_VERIFY(null),
+        SYNC_APPLY(Span.APPLY);
+
+        private final Span span;
+
+        Stage(Span span) {
+            this.span = span;
+        }
+    }
+
+    public enum Channel {
+        ONLINE,
+        OFFLINE
+    }
+
+    // Request bodies are inflated, response bodies deflated
+    public enum Direction {
+        REQUEST,
+        RESPONSE
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<Channel, Map<RejectionReason, Counter>> rejections = new EnumMap<>(Channel.class);
+    private final Map<SyncOutcome, Counter> syncOutcomes = new EnumMap<>(SyncOutcome.class);
+    private final DistributionSummary syncBatchSize;
+    private final Counter walletLockContended;
+    private final Counter walletLockTimeouts;
+    private final Map<Direction, DistributionSummary> compressionRatios = new EnumMap<>(Direction.class);
+    private final Map<Direction, Counter> compressionRawBytes = new EnumMap<>(Direction.class);
+    private final Map<Direction, Counter> compressionEncodedBytes = new EnumMap<>(Direction.class);
+    private final Map<Direction, Timer> compressionCpu = new EnumMap<>(Direction.class);
+    private final Counter compressionSkipped;
+
+    public PaymentMetrics(MeterRegistry registry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("payment.stage.duration")
+                    .description("Time spent in one stage of payment processing")
+                    .tag("stage", tagValue(stage))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+
+        for (Channel channel : Channel.values()) {
+            Map<RejectionReason, Counter> byReason = new EnumMap<>(RejectionReason.class);
+            for (RejectionReason reason : RejectionReason.values()) {
+                byReason.put(reason, Counter.builder("payment.rejections")
+                        .description("Payments refused, by reason")
+                        .tag("channel", tagValue(channel))
+                        .tag("reason", tagValue(reason))
+                        .register(registry));
+            }
+            rejections.put(channel, byReason);
+        }
+
+        for (SyncOutcome outcome : SyncOutcome.values()) {
+            syncOutcomes.put(outcome, Counter.builder("sync.items")
+                    .description("Offline sync items processed, by outcome")
+                    .tag("outcome", tagValue(outcome))
+                    .register(registry));
+        }
+
+        syncBatchSize = DistributionSummary.builder("sync.batch.size")
+                .description("Items per offline sync upload")
+                .baseUnit("items")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        walletLockContended = Counter.builder("wallet.lock.contended")
+                .description("Wallet updates that waited longer than the contention threshold")
+                .register(registry);
+        walletLockTimeouts = Counter.builder("wallet.lock.timeouts")
+                .description("Wallet updates that gave up waiting for the row lock")
+                .register(registry);
+
+        for (Direction direction : Direction.values()) {
+            compressionRatios.put(direction, DistributionSummary.builder("http.compression.ratio")
+                    .description("Uncompressed size over compressed size, per body")
+                    .tag("direction", tagValue(direction))
+                    .register(registry));
+            compressionRawBytes.put(direction, Counter.builder("http.compression.bytes")
+                    .description("Bytes of compressed bodies, before and after compression")
+                    .baseUnit("bytes")
+                    .tag("direction", tagValue(direction))
+                    .tag("form", "raw")
+                    .register(registry));
+            compressionEncodedBytes.put(direction, Counter.builder("http.compression.bytes")
+                    .description("Bytes of compressed bodies, before and after compression")
+                    .baseUnit("bytes")
+                    .tag("direction", tagValue(direction))
+                    .tag("form", "encoded")
+                    .register(registry));
+            compressionCpu.put(direction, Timer.builder("http.compression.cpu")
+                    .description("CPU time spent compressing or decompressing one body")
+                    .tag("direction", tagValue(direction))
+                    .publishPercentileHistogram()
+                    .register(registry));
+        }
+        compressionSkipped = Counter.builder("http.compression.skipped")
+                .description("Responses sent uncompressed because they were under the size threshold")
+                .register(registry);
+    }
+
+    /** Records the time since startNanos (a System.nanoTime() value) against a stage. */
+    public void record(Stage stage, long startNanos) {
+        stageTimers.get(stage).record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+        if (stage.span != null) {
+            RequestTiming.record(stage.span, startNanos);
+        }
+    }
+
+    public void rejected(Channel channel, RejectionReason reason) {
+        rejections.get(channel).get(reason).increment();
+    }
+
+    public void syncBatch(int size) {
+        syncBatchSize.record(size);
+    }
+
+    public void syncOutcome(SyncOutcome outcome) {
+        syncOutcomes.get(outcome).increment();
+    }
+
+    public void walletLockContended() {
+        walletLockContended.increment();
+    }
+
+    public void walletLockTimeout() {
+        walletLockTimeouts.increment();
+    }
+
+    /** One gzip body: its size uncompressed and compressed, and the CPU time spent on it. */
+    public void compression(Direction direction, long rawBytes, long encodedBytes, long cpuNanos) {
+        compressionRawBytes.get(direction).increment(rawBytes);
+        compressionEncodedBytes.get(direction).increment(encodedBytes);
+        if (encodedBytes > 0) {
+            compressionRatios.get(direction).record((double) rawBytes / encodedBytes);
+        }
+        compressionCpu.get(direction).record(cpuNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void compressionSkipped() {
+        compressionSkipped.increment();
+    }
+
+    private static String tagValue(Enum<?> value) {
+        return value.name().toLowerCase(Locale.ROOT);
+    }
+}
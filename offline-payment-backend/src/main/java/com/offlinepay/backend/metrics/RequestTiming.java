@@ -0,0 +1,128 @@
+package com.offlinepay.backend.metrics;
+
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-request span recorder behind the Server-Timing diagnostic header.
+ *
+ * A recorder exists only for a request that asked for timings (see
+ * {@link ServerTimingFilter}) and lives in a thread local for the duration of
+ * that request. While no request is being traced, {@link #current()} is one
+ * volatile read and returns null, so the instrumented code paths allocate
+ * nothing and skip the thread-local lookup entirely.
+ *
+ * Spans are summed per kind. Work done on other threads (the parallel apply
+ * of a sync batch) is reported as one span measured from the request thread.
+ */
+public final class RequestTiming {
+
+    public enum Span {
+        AUTH("auth", "JWT validation"),
+        DB("db", "Repository and JDBC calls"),
+        CRYPTO("crypto", "Signature verification"),
+        APPLY("apply", "Parallel apply of sync items"),
+        PARSE("parse", "Request body deserialization"),
+        SERIALIZE("serialize", "Response serialization");
+
+        private final String metricName;
+        private final String description;
+
+        Span(String metricName, String description) {
+            this.metricName = metricName;
+            this.description = description;
+        }
+    }
+
+    private static final Span[] SPANS = Span.values();
+    private static final AtomicInteger ACTIVE = new AtomicInteger();
+    private static final ThreadLocal<RequestTiming> CURRENT = new ThreadLocal<>();
+
+    private final long startNanos = System.nanoTime();
+    private final long[] nanos = new long[SPANS.length];
+    private final int[] counts = new int[SPANS.length];
+    private int dbDepth;
+    private long markNanos;
+
+    private RequestTiming() {
+    }
+
+    /** The recorder of the request running on this thread, or null when it is not traced. */
+    public static RequestTiming current() {
+        return ACTIVE.get() == 0 ? null : CURRENT.get();
+    }
+
+    /** Adds the time since startNanos (a System.nanoTime() value) to a span of the current request. */
+    public static void record(Span span, long startNanos) {
+        RequestTiming timing = current();
+        if (timing != null) {
+            timing.add(span, System.nanoTime() - startNanos);
+        }
+    }
+
+    static RequestTiming begin() {
+        RequestTiming timing = new RequestTiming();
+        CURRENT.set(timing);
+        ACTIVE.incrementAndGet();
+        return timing;
+    }
+
+    void end() {
+        CURRENT.remove();
+        ACTIVE.decrementAndGet();
+    }
+
+    void add(Span span, long elapsedNanos) {
+        nanos[span.ordinal()] += elapsedNanos;
+        counts[span.ordinal()]++;
+    }
+
+    // Repository calls can nest (a default method calling another query);
+    // only the outermost one is timed so DB time is not counted twice.
+    boolean enterDb() {
+        return dbDepth++ == 0;
+    }
+
+    void exitDb(boolean outermost, long startNanos) {
+        dbDepth--;
+        if (outermost) {
+            add(Span.DB, System.nanoTime() - startNanos);
+        }
+    }
+
+    // Start of body parsing or serialization, closed by the matching span
+    void mark() {
+        markNanos = System.nanoTime();
+    }
+
+    void closeMark(Span span) {
+        if (markNanos != 0) {
+            add(span, System.nanoTime() - markNanos);
+            markNanos = 0;
+        }
+    }
+
+    /** Formats the spans as a Server-Timing header value, with the total since the request began. */
+    String toHeaderValue() {
+        StringBuilder header = new StringBuilder(160);
+        for (Span span : SPANS) {
+            int i = span.ordinal();
+            if (counts[i] == 0) {
+                continue;
+            }
+            appendMetric(header, span.metricName, nanos[i], span.description + " (" + counts[i] + ")");
+        }
+        appendMetric(header, "total", System.nanoTime() - startNanos, null);
+        return header.toString();
+    }
+
+    private static void appendMetric(StringBuilder header, String name, long elapsedNanos, String description) {
+        if (header.length() > 0) {
+            header.append(", ");
+        }
+        header.append(name).append(";dur=").append(String.format(Locale.ROOT, "%.3f", elapsedNanos / 1_000_000.0));
+        if (description != null) {
+            header.append(";desc=\"").append(description).append('"');
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.offlinepay.backend.metrics;
+
+import com.offlinepay.backend.controller.OfflineTransactionController;
+import com.offlinepay.backend.controller.TransactionController;
+import com.offlinepay.backend.controller.WalletController;
+import com.offlinepay.backend.metrics.RequestTiming.Span;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.lang.NonNull;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.RequestBodyAdviceAdapter;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+import java.lang.reflect.Type;
+
+/**
+ * Server-Timing hooks on the payment controllers: times request body parsing
+ * and marks where response serialization starts. Only requests that
+ * {@link ServerTimingFilter} let through, from allow-listed callers, have a
+ * recorder to feed.
+ */
+@ControllerAdvice(assignableTypes = {
+        OfflineTransactionController.class, TransactionController.class, WalletController.class })
+public class ServerTimingAdvice extends RequestBodyAdviceAdapter implements ResponseBodyAdvice<Object> {
+
+    @Override
+    public boolean supports(@NonNull MethodParameter methodParameter, @NonNull Type targetType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    @NonNull
+    public HttpInputMessage beforeBodyRead(@NonNull HttpInputMessage inputMessage, @NonNull MethodParameter parameter,
+            @NonNull Type targetType, @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.mark();
+        }
+        return inputMessage;
+    }
+
+    @Override
+    @NonNull
+    public Object afterBodyRead(@NonNull Object body, @NonNull HttpInputMessage inputMessage,
+            @NonNull MethodParameter parameter, @NonNull Type targetType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.closeMark(Span.PARSE);
+        }
+        return body;
+    }
+
+    @Override
+    public boolean supports(@NonNull MethodParameter returnType,
+            @NonNull Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, @NonNull MethodParameter returnType,
+            @NonNull MediaType selectedContentType,
+            @NonNull Class<? extends HttpMessageConverter<?>> selectedConverterType,
+            @NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response) {
+        RequestTiming timing = RequestTiming.current();
+        if (timing != null) {
+            timing.mark();
+        }
+        return body;
+    }
+}
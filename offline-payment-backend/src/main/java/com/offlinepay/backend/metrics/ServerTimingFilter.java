@@ -0,0 +1,89 @@
+package com.offlinepay.backend.metrics;
+
+import com.offlinepay.backend.metrics.RequestTiming.Span;
+import com.offlinepay.backend.security.JwtService;
+import io.jsonwebtoken.Claims;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.lang.NonNull;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.Set;
+
+/**
+ * Opt-in per-request latency breakdown. A request carrying the
+ * X-Server-Timing header from a caller on offlinepay.server-timing.allowed-users
+ * (emails) gets a {@link RequestTiming} recorder, and its response carries a
+ * Server-Timing header with the time spent in auth, database, crypto and
+ * (de)serialization.
+ *
+ * The caller is checked here, from the verified bearer token, before anything
+ * is buffered: the response body is held in memory while tracing so the
+ * header can still be set after serialization, and no one else may force
+ * that. The token's claims are cached by {@link JwtService}, so the auth span
+ * shows the security filter's cached lookup. Streamed NDJSON history and
+ * streaming sync are never traced. All other requests go straight through.
+ */
+public class ServerTimingFilter extends OncePerRequestFilter {
+
+    public static final String REQUEST_HEADER = "X-Server-Timing";
+    public static final String RESPONSE_HEADER = "Server-Timing";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final String BEARER = "Bearer ";
+
+    private final JwtService jwtService;
+    private final Set<String> allowedUsers;
+
+    public ServerTimingFilter(JwtService jwtService, Set<String> allowedUsers) {
+        this.jwtService = jwtService;
+        this.allowedUsers = allowedUsers;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (request.getHeader(REQUEST_HEADER) == null || allowedUsers.isEmpty()) {
+            return true;
+        }
+        String accept = request.getHeader(HttpHeaders.ACCEPT);
+        if (accept != null && accept.contains(NDJSON) || "true".equals(request.getParameter("stream"))) {
+            return true;
+        }
+        return !isCallerAllowed(request);
+    }
+
+    private boolean isCallerAllowed(HttpServletRequest request) {
+        String authorization = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (authorization == null || !authorization.startsWith(BEARER)) {
+            return false;
+        }
+        return jwtService.validateToken(authorization.substring(BEARER.length()))
+                .map(Claims::getSubject)
+                .filter(allowedUsers::contains)
+                .isPresent();
+    }
+
+    @Override
+    protected void doFilterInternal(@NonNull HttpServletRequest request, @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain) throws ServletException, IOException {
+        RequestTiming timing = RequestTiming.begin();
+        ContentCachingResponseWrapper buffered = new ContentCachingResponseWrapper(response);
+        try {
+            filterChain.doFilter(request, buffered);
+            timing.closeMark(Span.SERIALIZE);
+            buffered.setHeader(RESPONSE_HEADER, timing.toHeaderValue());
+            // Lets browser clients read the timings from the Resource Timing API
+            String origin = request.getHeader(HttpHeaders.ORIGIN);
+            if (origin != null) {
+                buffered.setHeader("Timing-Allow-Origin", origin);
+            }
+        } finally {
+            timing.end();
+            buffered.copyBodyToResponse();
+        }
+    }
+}
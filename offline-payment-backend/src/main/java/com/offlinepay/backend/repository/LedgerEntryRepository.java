@@ -0,0 +1,22 @@
+package com.offlinepay.backend.repository;
+
+import com.offlinepay.backend.entity.LedgerEntry;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+// Entries are inserted in batches by LedgerService, never updated or deleted
+@Repository
+public interface LedgerEntryRepository extends JpaRepository<LedgerEntry, Long> {
+
+    @Query("select coalesce(sum(e.amount), 0) from LedgerEntry e "
+            + "where e.accountId = :accountId and e.id > :afterId")
+    BigDecimal sumAfter(@Param("accountId") UUID accountId, @Param("afterId") long afterId);
+
+    @Query("select coalesce(max(e.id), 0) from LedgerEntry e where e.accountId = :accountId")
+    long findLastIdByAccountId(@Param("accountId") UUID accountId);
+}
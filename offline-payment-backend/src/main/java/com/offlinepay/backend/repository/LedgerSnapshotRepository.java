@@ -0,0 +1,11 @@
+package com.offlinepay.backend.repository;
+
+import com.offlinepay.backend.entity.LedgerSnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.UUID;
+
+@Repository
+public interface LedgerSnapshotRepository extends JpaRepository<LedgerSnapshot, UUID> {
+}
@@ -1,13 +1,32 @@
 package com.offlinepay.backend.repository;
 
 import com.offlinepay.backend.entity.OfflineTransaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface OfflineTransactionRepository extends JpaRepository<OfflineTransaction, UUID> {
     Optional<OfflineTransaction> findByNonce(String nonce);
+
+    boolean existsByNonce(String nonce);
+
+    @Query("select o.nonce from OfflineTransaction o where o.nonce in :nonces")
+    List<String> findExistingNonces(@Param("nonces") Collection<String> nonces);
+
+    // Must be consumed inside a transaction and closed by the caller
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "5000"))
+    @Query("select o.nonce from OfflineTransaction o")
+    Stream<String> streamAllNonces();
 }
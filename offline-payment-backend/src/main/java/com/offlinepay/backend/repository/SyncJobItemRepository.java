@@ -0,0 +1,26 @@
+package com.offlinepay.backend.repository;
+
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.entity.SyncJobItem;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SyncJobItemRepository extends JpaRepository<SyncJobItem, UUID> {
+
+    List<SyncJobItem> findByJobIdAndItemIndexGreaterThanEqualOrderByItemIndex(UUID jobId, int fromIndex,
+            Pageable pageable);
+
+    // Outcomes of processed items from item fromIndex on, one page at a time
+    // along the (job_id, item_index) unique index
+    @Query("select new com.offlinepay.backend.dto.SyncResult(i.nonce, i.outcome, i.reason) "
+            + "from SyncJobItem i where i.jobId = :jobId and i.itemIndex >= :fromIndex and i.outcome is not null "
+            + "order by i.itemIndex")
+    List<SyncResult> findResults(@Param("jobId") UUID jobId, @Param("fromIndex") int fromIndex, Pageable pageable);
+}
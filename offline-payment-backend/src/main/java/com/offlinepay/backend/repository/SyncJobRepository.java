@@ -0,0 +1,53 @@
+package com.offlinepay.backend.repository;
+
+import com.offlinepay.backend.entity.SyncJob;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface SyncJobRepository extends JpaRepository<SyncJob, UUID> {
+
+    String CLAIMABLE = "(j.status = com.offlinepay.backend.entity.SyncJobStatus.PENDING "
+            + "or (j.status = com.offlinepay.backend.entity.SyncJobStatus.RUNNING and j.leaseUntil < :now))";
+
+    @Query("select j.id from SyncJob j where " + CLAIMABLE + " order by j.createdAt")
+    List<UUID> findClaimableIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // 1 row means this worker now owns the job until leaseUntil
+    @Modifying
+    @Query("update SyncJob j set j.status = com.offlinepay.backend.entity.SyncJobStatus.RUNNING, "
+            + "j.leaseUntil = :leaseUntil where j.id = :id and " + CLAIMABLE)
+    int claim(@Param("id") UUID id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    // Records one processed chunk and renews the lease. 0 rows means another
+    // worker took the job over, so the caller must stop.
+    @Modifying
+    @Query("update SyncJob j set j.nextIndex = :nextIndex, j.applied = j.applied + :applied, "
+            + "j.duplicates = j.duplicates + :duplicates, j.rejected = j.rejected + :rejected, "
+            + "j.leaseUntil = :leaseUntil "
+            + "where j.id = :id and j.nextIndex = :expectedIndex "
+            + "and j.status = com.offlinepay.backend.entity.SyncJobStatus.RUNNING")
+    int advance(@Param("id") UUID id, @Param("expectedIndex") int expectedIndex, @Param("nextIndex") int nextIndex,
+            @Param("applied") int applied, @Param("duplicates") int duplicates, @Param("rejected") int rejected,
+            @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Modifying
+    @Query("update SyncJob j set j.status = com.offlinepay.backend.entity.SyncJobStatus.COMPLETED, "
+            + "j.completedAt = :now, j.leaseUntil = null where j.id = :id")
+    int complete(@Param("id") UUID id, @Param("now") LocalDateTime now);
+
+    // Hands a job back on shutdown so it resumes without waiting for the lease
+    @Modifying
+    @Query("update SyncJob j set j.status = com.offlinepay.backend.entity.SyncJobStatus.PENDING, "
+            + "j.leaseUntil = null where j.id = :id "
+            + "and j.status = com.offlinepay.backend.entity.SyncJobStatus.RUNNING")
+    int release(@Param("id") UUID id);
+}
@@ -1,13 +1,66 @@
 package com.offlinepay.backend.repository;
 
+import com.offlinepay.backend.dto.TransactionHistoryItem;
 import com.offlinepay.backend.entity.Transaction;
+import jakarta.persistence.QueryHint;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.HibernateHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, UUID> {
-    List<Transaction> findBySenderIdOrReceiverIdOrderByCreatedAtDesc(UUID senderId, UUID receiverId);
+    // A user's history is the rows they sent plus the rows they received.
+    // "sender = :userId or receiver = :userId" can use neither of the
+    // (party, createdAt, id) indexes, so each side is its own branch read in
+    // index order, cut to the page size, and the two are merged and cut again.
+    // Self-transfers are refused, but the received branch skips them anyway
+    // so a row can never appear twice.
+    String HISTORY_COLUMNS = "t.id as id, s.id as senderId, s.name as senderName, s.email as senderEmail, "
+            + "r.id as receiverId, r.name as receiverName, r.email as receiverEmail, "
+            + "t.amount as amount, t.status as status, t.transactionType as transactionType, "
+            + "t.createdAt as createdAt ";
+
+    String SENT = "select " + HISTORY_COLUMNS
+            + "from Transaction t join t.sender s join t.receiver r where s.id = :userId ";
+
+    String RECEIVED = "select " + HISTORY_COLUMNS
+            + "from Transaction t join t.sender s join t.receiver r where r.id = :userId and s.id <> :userId ";
+
+    // Keyset position: rows strictly after (createdAt, id) in descending order
+    String AFTER = "and (t.createdAt < :createdAt or (t.createdAt = :createdAt and t.id < :id)) ";
+
+    String BRANCH_PAGE = "order by t.createdAt desc, t.id desc limit :limit";
+
+    String HISTORY_ITEM = "select new com.offlinepay.backend.dto.TransactionHistoryItem("
+            + "h.id, h.senderId, h.senderName, h.senderEmail, h.receiverId, h.receiverName, h.receiverEmail, "
+            + "h.amount, h.status, h.transactionType, h.createdAt) ";
+
+    String HISTORY_ORDER = "order by h.createdAt desc, h.id desc";
+
+    @Query(HISTORY_ITEM + "from ("
+            + "(" + SENT + BRANCH_PAGE + ") union all (" + RECEIVED + BRANCH_PAGE + ")"
+            + ") h " + HISTORY_ORDER + " limit :limit")
+    List<TransactionHistoryItem> findHistoryFirstPage(@Param("userId") UUID userId, @Param("limit") int limit);
+
+    @Query(HISTORY_ITEM + "from ("
+            + "(" + SENT + AFTER + BRANCH_PAGE + ") union all (" + RECEIVED + AFTER + BRANCH_PAGE + ")"
+            + ") h " + HISTORY_ORDER + " limit :limit")
+    List<TransactionHistoryItem> findHistoryPageAfter(@Param("userId") UUID userId,
+            @Param("createdAt") LocalDateTime createdAt,
+            @Param("id") UUID id,
+            @Param("limit") int limit);
+
+    // Must be consumed inside a transaction and closed by the caller
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query(HISTORY_ITEM + "from (" + SENT + "union all " + RECEIVED + ") h " + HISTORY_ORDER)
+    Stream<TransactionHistoryItem> streamHistory(@Param("userId") UUID userId);
 }
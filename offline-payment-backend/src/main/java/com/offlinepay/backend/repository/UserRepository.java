@@ -1,13 +1,69 @@
 package com.offlinepay.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
+import com.offlinepay.backend.dto.UserProfile;
+import com.offlinepay.backend.dto.UserSummary;
 import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.security.AuthenticatedUser;
 
 public interface UserRepository extends JpaRepository<User, UUID> {
 
     Optional<User> findByEmail(String email);
 
+    boolean existsByEmail(String email);
+
     Optional<User> findByResetToken(String resetToken);
-}
\ No newline at end of file
+
+    // User and wallet ids in one query, for tokens that predate the id claims
+    @Query("select new com.offlinepay.backend.security.AuthenticatedUser(u.id, w.id, u.email) "
+            + "from Wallet w join w.user u where u.email = :email")
+    Optional<AuthenticatedUser> findPrincipalByEmail(@Param("email") String email);
+
+    // Slim reads for the payment and auth paths: no TEXT columns
+    @Query("select new com.offlinepay.backend.dto.UserSummary(u.id, u.name, u.email) from User u where u.id = :id")
+    Optional<UserSummary> findSummaryById(@Param("id") UUID id);
+
+    @Query("select u.publicKey from User u where u.id = :id")
+    Optional<String> findPublicKeyById(@Param("id") UUID id);
+
+    @Query("select u.id from User u where u.id in :ids")
+    List<UUID> findExistingIds(@Param("ids") Collection<UUID> ids);
+
+    @Query("select u.id as id, u.publicKey as publicKey from User u where u.id in :ids")
+    List<PublicKeyView> findPublicKeysByIdIn(@Param("ids") Collection<UUID> ids);
+
+    @Query("select u.id as id, u.password as password from User u where u.email = :email")
+    Optional<CredentialsView> findCredentialsByEmail(@Param("email") String email);
+
+    @Query("select new com.offlinepay.backend.dto.UserProfile(u.id, u.name, u.email, u.contact, u.profilePicHash, "
+            + "u.bankAccountNumber, u.bankIfsc, u.bankName, u.createdAt) from User u where u.id = :id")
+    Optional<UserProfile> findProfileById(@Param("id") UUID id);
+
+    @Query("select u.profilePicHash from User u where u.id = :id")
+    Optional<String> findProfilePicHashById(@Param("id") UUID id);
+
+    @Transactional
+    @Modifying
+    @Query("update User u set u.profilePicHash = :hash where u.id = :id")
+    int updateProfilePicHash(@Param("id") UUID id, @Param("hash") String hash);
+
+    interface PublicKeyView {
+        UUID getId();
+
+        String getPublicKey();
+    }
+
+    interface CredentialsView {
+        UUID getId();
+
+        String getPassword();
+    }
+}
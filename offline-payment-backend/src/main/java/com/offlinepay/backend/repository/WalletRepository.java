@@ -1,6 +1,12 @@
 package com.offlinepay.backend.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 import com.offlinepay.backend.entity.Wallet;
@@ -8,4 +14,46 @@ import com.offlinepay.backend.entity.User;
 
 public interface WalletRepository extends JpaRepository<Wallet, UUID> {
     Optional<Wallet> findByUser(User user);
-}
\ No newline at end of file
+
+    @Query("select w.id from Wallet w where w.user.id = :userId")
+    Optional<UUID> findIdByUserId(@Param("userId") UUID userId);
+
+    // Home row plus any stripes, still one query
+    @Query("select w.balance + coalesce((select sum(s.balance) from WalletStripe s where s.userId = w.user.id), 0) "
+            + "from Wallet w where w.id = :walletId")
+    Optional<BigDecimal> findBalanceById(@Param("walletId") UUID walletId);
+
+    @Query("select w.balance + coalesce((select sum(s.balance) from WalletStripe s where s.userId = w.user.id), 0) "
+            + "from Wallet w where w.user.id = :userId")
+    Optional<BigDecimal> findBalanceByUserId(@Param("userId") UUID userId);
+
+    @Query("select w.user.id as userId, w.stripeCount as stripeCount from Wallet w where w.stripeCount > 1")
+    List<StripedWallet> findStripedWallets();
+
+    @Modifying
+    @Query("update Wallet w set w.stripeCount = :stripeCount where w.user.id = :userId")
+    int updateStripeCount(@Param("userId") UUID userId, @Param("stripeCount") int stripeCount);
+
+    // Row-locks the wallet until the transaction ends; used by ledger snapshots
+    @Query(value = "select balance from wallets where user_id = :userId for update", nativeQuery = true)
+    Optional<BigDecimal> lockBalanceByUserId(@Param("userId") UUID userId);
+
+    // Conditional debit in one statement: 0 rows means no wallet or not enough balance.
+    // Native, as JPQL arithmetic on the unsized balance column renders an
+    // invalid cast(? as numeric($p,$s)) on H2.
+    @Modifying
+    @Query(value = "update wallets set balance = balance - :amount "
+            + "where user_id = :userId and balance >= :amount", nativeQuery = true)
+    int debit(@Param("userId") UUID userId, @Param("amount") BigDecimal amount);
+
+    // 0 rows means the user has no wallet
+    @Modifying
+    @Query(value = "update wallets set balance = balance + :amount where user_id = :userId", nativeQuery = true)
+    int credit(@Param("userId") UUID userId, @Param("amount") BigDecimal amount);
+
+    interface StripedWallet {
+        UUID getUserId();
+
+        Integer getStripeCount();
+    }
+}
@@ -0,0 +1,58 @@
+package com.offlinepay.backend.repository;
+
+import com.offlinepay.backend.entity.WalletStripe;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface WalletStripeRepository extends JpaRepository<WalletStripe, UUID> {
+
+    // 0 rows means the stripe no longer exists (striping was reduced)
+    @Modifying
+    @Query("update WalletStripe s set s.balance = s.balance + :amount "
+            + "where s.userId = :userId and s.stripeIndex = :stripeIndex")
+    int credit(@Param("userId") UUID userId, @Param("stripeIndex") int stripeIndex,
+            @Param("amount") BigDecimal amount);
+
+    // Always taken after the wallet row lock, in stripe order. Plain values
+    // rather than managed entities, so the native UPDATEs and DELETEs that
+    // follow cannot leave a stale copy in the persistence context for a
+    // later read in the transaction
+    @Query(value = "select stripe_index as stripeIndex, balance as balance from wallet_stripes "
+            + "where user_id = :userId order by stripe_index for update", nativeQuery = true)
+    List<StripeBalance> lockBalancesByUserId(@Param("userId") UUID userId);
+
+    // Conditional debit in one statement: 0 rows means the stripe is gone or
+    // holds less than the amount
+    @Modifying
+    @Query(value = "update wallet_stripes set balance = balance - :amount "
+            + "where user_id = :userId and stripe_index = :stripeIndex and balance >= :amount", nativeQuery = true)
+    int debit(@Param("userId") UUID userId, @Param("stripeIndex") int stripeIndex,
+            @Param("amount") BigDecimal amount);
+
+    // Empties the wallet's stripes from fromIndex up. Run under
+    // lockBalancesByUserId, so the locked balances are what it drains
+    @Modifying
+    @Query(value = "update wallet_stripes set balance = 0 "
+            + "where user_id = :userId and stripe_index >= :fromIndex and balance <> 0", nativeQuery = true)
+    int empty(@Param("userId") UUID userId, @Param("fromIndex") int fromIndex);
+
+    // Same locking contract as empty
+    @Modifying
+    @Query(value = "delete from wallet_stripes where user_id = :userId and stripe_index >= :fromIndex",
+            nativeQuery = true)
+    int deleteFrom(@Param("userId") UUID userId, @Param("fromIndex") int fromIndex);
+
+    interface StripeBalance {
+        Integer getStripeIndex();
+
+        BigDecimal getBalance();
+    }
+}
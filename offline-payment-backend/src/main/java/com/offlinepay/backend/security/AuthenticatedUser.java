@@ -0,0 +1,18 @@
+package com.offlinepay.backend.security;
+
+import java.security.Principal;
+import java.util.UUID;
+
+/**
+ * Principal installed by {@link JwtAuthenticationFilter}. Carries the ids from
+ * the token so services can go straight to the user's rows without looking
+ * the user up by email on every request. getName() stays the email, so
+ * Authentication.getName() keeps working.
+ */
+public record AuthenticatedUser(UUID userId, UUID walletId, String email) implements Principal {
+
+    @Override
+    public String getName() {
+        return email;
+    }
+}
@@ -1,5 +1,8 @@
 package com.offlinepay.backend.security;
 
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.repository.UserRepository;
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.*;
 import jakarta.servlet.http.*;
 import lombok.RequiredArgsConstructor;
@@ -12,12 +15,15 @@ import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Optional;
 
 @Component
 @RequiredArgsConstructor
 public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtService jwtService;
+    private final UserRepository userRepository;
+    private final PaymentMetrics paymentMetrics;
 
     @Override
     protected void doFilterInternal(
@@ -36,15 +42,24 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         final String jwt = authHeader.substring(7);
 
         try {
-            String email = jwtService.extractEmail(jwt);
+            // One verification (or cache hit) yields both validity and the subject
+            long start = System.nanoTime();
+            Optional<Claims> claims = jwtService.validateToken(jwt);
+            paymentMetrics.record(PaymentMetrics.Stage.JWT_VALIDATE, start);
+            String email = claims.map(Claims::getSubject).orElse(null);
 
             if (email != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                if (jwtService.isTokenValid(jwt)) {
+                AuthenticatedUser principal = jwtService.toPrincipal(claims.get());
+                if (principal.userId() == null || principal.walletId() == null) {
+                    // Token issued before id claims were added: resolve once here
+                    principal = userRepository.findPrincipalByEmail(email).orElse(null);
+                }
 
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken =
                             new UsernamePasswordAuthenticationToken(
-                                    email,
+                                    principal,
                                     null,
                                     new ArrayList<>());
 
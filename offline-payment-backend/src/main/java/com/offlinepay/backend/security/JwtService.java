@@ -1,11 +1,19 @@
 package com.offlinepay.backend.security;
 
+import com.offlinepay.backend.cache.LruCache;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
 import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
 
 @Service
 public class JwtService {
@@ -13,37 +21,110 @@ public class JwtService {
     private final String SECRET = "mySuperSecretKeyForJWTGeneration1234567890123456";
     private final long EXPIRATION = 86400000;
 
-    private Key getSignKey() {
-        return Keys.hmacShaKeyFor(SECRET.getBytes());
+    static final String USER_ID_CLAIM = "uid";
+    static final String WALLET_ID_CLAIM = "wid";
+
+    // Built once: the key and the parser are immutable and thread-safe
+    private final Key signKey = Keys.hmacShaKeyFor(SECRET.getBytes());
+    private final JwtParser parser = Jwts.parserBuilder()
+            .setSigningKey(signKey)
+            .build();
+
+    private static final ThreadLocal<MessageDigest> SHA256 = ThreadLocal.withInitial(() -> {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    });
+
+    // Recently verified tokens, keyed by SHA-256 of the token so raw bearer
+    // tokens are not kept in memory. Entries live for a short TTL and are
+    // never served past the token's own expiry.
+    private final LruCache<String, Claims> verifiedTokens;
+
+    public JwtService(@Value("${offlinepay.jwt-cache.max-size:10000}") int cacheSize,
+            @Value("${offlinepay.jwt-cache.ttl-ms:60000}") long cacheTtlMillis) {
+        this.verifiedTokens = new LruCache<>(cacheSize, cacheTtlMillis);
     }
 
-    public String generateToken(String email) {
+    public String generateToken(String email, UUID userId, UUID walletId) {
         return Jwts.builder()
                 .setSubject(email)
+                .claim(USER_ID_CLAIM, userId.toString())
+                .claim(WALLET_ID_CLAIM, walletId.toString())
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + EXPIRATION))
-                .signWith(getSignKey(), SignatureAlgorithm.HS256)
+                .signWith(signKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
-    public String extractEmail(String token) {
-        return Jwts.parserBuilder()
-                .setSigningKey(getSignKey())
-                .build()
-                .parseClaimsJws(token)
-                .getBody()
-                .getSubject();
-    }
+    /**
+     * Verifies the token once and returns its claims, or empty if the token is
+     * malformed, forged or expired. Repeat calls with the same token within
+     * the cache TTL are a hash plus a map lookup.
+     */
+    public Optional<Claims> validateToken(String token) {
+        String key = hash(token);
+        Claims cached = verifiedTokens.get(key);
+        if (cached != null) {
+            if (!isExpired(cached)) {
+                return Optional.of(cached);
+            }
+            verifiedTokens.invalidate(key);
+            return Optional.empty();
+        }
 
-    public boolean isTokenValid(String token) {
         try {
-            Jwts.parserBuilder()
-                    .setSigningKey(getSignKey())
-                    .build()
-                    .parseClaimsJws(token);
-            return true;
+            Claims claims = parser.parseClaimsJws(token).getBody();
+            verifiedTokens.put(key, claims);
+            return Optional.of(claims);
         } catch (Exception e) {
-            return false;
+            return Optional.empty();
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Builds the request principal from verified claims. Tokens issued before
+     * the id claims existed yield null ids.
+     */
+    public AuthenticatedUser toPrincipal(Claims claims) {
+        return new AuthenticatedUser(
+                uuidClaim(claims, USER_ID_CLAIM),
+                uuidClaim(claims, WALLET_ID_CLAIM),
+                claims.getSubject());
+    }
+
+    public String extractEmail(String token) {
+        return validateToken(token)
+                .map(Claims::getSubject)
+                .orElseThrow(() -> new JwtException("Invalid token"));
+    }
+
+    public boolean isTokenValid(String token) {
+        return validateToken(token).isPresent();
+    }
+
+    public long cacheHitCount() {
+        return verifiedTokens.hitCount();
+    }
+
+    public long cacheMissCount() {
+        return verifiedTokens.missCount();
+    }
+
+    private static UUID uuidClaim(Claims claims, String name) {
+        String value = claims.get(name, String.class);
+        return value == null ? null : UUID.fromString(value);
+    }
+
+    private static boolean isExpired(Claims claims) {
+        Date expiration = claims.getExpiration();
+        return expiration != null && expiration.before(new Date());
+    }
+
+    private static String hash(String token) {
+        byte[] digest = SHA256.get().digest(token.getBytes(StandardCharsets.UTF_8));
+        return Base64.getEncoder().encodeToString(digest);
+    }
+}
@@ -0,0 +1,70 @@
+package com.offlinepay.backend.security;
+
+import com.offlinepay.backend.cache.LruCache;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.security.GeneralSecurityException;
+import java.security.KeyFactory;
+import java.security.PublicKey;
+import java.security.spec.X509EncodedKeySpec;
+import java.util.Base64;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Parsed sender public keys keyed by user id, so repeat senders skip the
+ * Base64 decode and KeyFactory parse on every offline payment.
+ *
+ * Each entry remembers the encoded key it was parsed from. If the stored key
+ * no longer matches (rotated on another instance), the entry is re-parsed.
+ */
+@Component
+public class PublicKeyCache {
+
+    private final LruCache<UUID, CachedKey> cache;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public PublicKeyCache(@Value("${offlinepay.public-key-cache.max-size:10000}") int maxSize) {
+        this.cache = new LruCache<>(maxSize);
+    }
+
+    public PublicKey get(UUID userId, String encodedKey) throws GeneralSecurityException {
+        CachedKey cached = cache.get(userId);
+        if (cached != null && cached.encoded().equals(encodedKey)) {
+            hits.increment();
+            return cached.key();
+        }
+        misses.increment();
+
+        PublicKey key = parse(encodedKey);
+        cache.put(userId, new CachedKey(encodedKey, key));
+        return key;
+    }
+
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    public long hitCount() {
+        return hits.sum();
+    }
+
+    public long missCount() {
+        return misses.sum();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    private static PublicKey parse(String encodedKey) throws GeneralSecurityException {
+        // Decode the SPKI Base64 string from the user
+        byte[] pkBytes = Base64.getDecoder().decode(encodedKey);
+        return KeyFactory.getInstance("EC").generatePublic(new X509EncodedKeySpec(pkBytes));
+    }
+
+    private record CachedKey(String encoded, PublicKey key) {
+    }
+}
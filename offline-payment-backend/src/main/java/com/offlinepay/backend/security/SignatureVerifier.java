@@ -0,0 +1,48 @@
+package com.offlinepay.backend.security;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PublicKey;
+import java.security.Signature;
+import java.util.Base64;
+
+/**
+ * ECDSA verification of offline payment payloads. Signature engines are not
+ * thread-safe but are reusable after initVerify, so each thread keeps its own
+ * instance instead of calling Signature.getInstance per payment.
+ */
+@Component
+public class SignatureVerifier {
+
+    // WebCrypto's ECDSA signature is in P1363 raw (r||s) format instead of DER
+    private static final String ALGORITHM = "SHA256withECDSAinP1363Format";
+
+    private static final ThreadLocal<Signature> SIGNATURE = ThreadLocal.withInitial(() -> {
+        try {
+            return Signature.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " not available", e);
+        }
+    });
+
+    public boolean verify(OfflineTransactionRequest request, PublicKey publicKey) throws GeneralSecurityException {
+        Signature sig = SIGNATURE.get();
+        sig.initVerify(publicKey);
+        sig.update(payload(request));
+
+        // Decode the base64 signature
+        byte[] signatureBytes = Base64.getDecoder().decode(request.getSignature());
+
+        return sig.verify(signatureBytes);
+    }
+
+    // Deterministic reconstruction of the payload
+    public static byte[] payload(OfflineTransactionRequest request) {
+        String payloadStr = request.getSenderId() + ":" + request.getReceiverId() + ":" + request.getAmount() + ":"
+                + request.getNonce();
+        return payloadStr.getBytes(StandardCharsets.UTF_8);
+    }
+}
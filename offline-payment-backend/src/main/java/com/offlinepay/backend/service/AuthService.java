@@ -14,6 +14,7 @@ import com.offlinepay.backend.dto.*;
 import com.offlinepay.backend.entity.User;
 import com.offlinepay.backend.entity.Wallet;
 import com.offlinepay.backend.security.JwtService;
+import com.offlinepay.backend.security.PublicKeyCache;
 
 @Service
 @RequiredArgsConstructor
@@ -23,10 +24,11 @@ public class AuthService {
     private final PasswordEncoder passwordEncoder;
     private final JwtService jwtService;
     private final WalletRepository walletRepository;
+    private final PublicKeyCache publicKeyCache;
 
     public AuthResponse register(RegisterRequest request) {
 
-        if (userRepository.findByEmail(request.getEmail()).isPresent()) {
+        if (userRepository.existsByEmail(request.getEmail())) {
             return new AuthResponse("Email already registered");
         }
 
@@ -47,7 +49,7 @@ public class AuthService {
 
         walletRepository.save(wallet);
 
-        String token = jwtService.generateToken(user.getEmail());
+        String token = jwtService.generateToken(user.getEmail(), user.getId(), wallet.getId());
 
         return new AuthResponse(token, user.getId(), "Success");
     }
@@ -69,16 +71,20 @@ public class AuthService {
 
     public AuthResponse login(LoginRequest request) {
 
-        User user = userRepository.findByEmail(request.getEmail())
+        // Id and password hash only, not the whole user row
+        UserRepository.CredentialsView credentials = userRepository.findCredentialsByEmail(request.getEmail())
                 .orElseThrow(() -> new RuntimeException("User not found"));
 
-        if (!passwordEncoder.matches(request.getPassword(), user.getPassword())) {
+        if (!passwordEncoder.matches(request.getPassword(), credentials.getPassword())) {
             throw new RuntimeException("Invalid credentials");
         }
 
-        String token = jwtService.generateToken(user.getEmail());
+        UUID walletId = walletRepository.findIdByUserId(credentials.getId())
+                .orElseThrow(() -> new RuntimeException("Wallet not found"));
 
-        return new AuthResponse(token, user.getId(), "Success");
+        String token = jwtService.generateToken(request.getEmail(), credentials.getId(), walletId);
+
+        return new AuthResponse(token, credentials.getId(), "Success");
     }
 
     public String resetPassword(ResetPasswordRequest request) {
@@ -99,10 +105,11 @@ public class AuthService {
         return "Password reset successful";
     }
 
-    public void savePublicKey(String email, String publicKey) {
-        User user = userRepository.findByEmail(email)
+    public void savePublicKey(UUID userId, String publicKey) {
+        User user = userRepository.findById(userId)
                 .orElseThrow(() -> new RuntimeException("User not found"));
         user.setPublicKey(publicKey);
         userRepository.save(user);
+        publicKeyCache.invalidate(user.getId());
     }
 }
\ No newline at end of file
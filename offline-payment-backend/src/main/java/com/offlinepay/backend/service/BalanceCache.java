@@ -0,0 +1,112 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.cache.LruCache;
+import com.offlinepay.backend.repository.WalletRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Read-through cache of wallet balances keyed by user id, in front of
+ * {@link WalletRepository#findBalanceByUserId}.
+ *
+ * Every balance change goes through {@link WalletMutationService}, which calls
+ * {@link #evictAfterCommit} for each wallet it touches. Once the writing
+ * transaction commits, the entry is dropped before the write returns to its
+ * caller, so a read after a local write always reloads. The TTL bounds how
+ * long a change made by another instance can go unseen when no shared
+ * {@link BalanceInvalidationBus} is configured.
+ *
+ * A read that raced with a write could load the old balance and cache it
+ * after the eviction. Each user id maps to a version slot that evictions bump;
+ * a reader that sees its slot move while loading drops what it just cached.
+ */
+@Component
+public class BalanceCache {
+
+    private static final int VERSION_SLOTS = 4096;
+
+    private final WalletRepository walletRepository;
+    private final BalanceInvalidationBus invalidationBus;
+    private final LruCache<UUID, BigDecimal> cache;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_SLOTS);
+
+    public BalanceCache(WalletRepository walletRepository,
+            BalanceInvalidationBus invalidationBus,
+            @Value("${offlinepay.balance-cache.max-size:100000}") int maxSize,
+            @Value("${offlinepay.balance-cache.ttl-ms:30000}") long ttlMs) {
+        this.walletRepository = walletRepository;
+        this.invalidationBus = invalidationBus;
+        this.cache = new LruCache<>(maxSize, ttlMs);
+        invalidationBus.subscribe(this::evict);
+    }
+
+    public Optional<BigDecimal> get(UUID userId) {
+        BigDecimal balance = cache.get(userId);
+        if (balance != null) {
+            return Optional.of(balance);
+        }
+
+        int slot = slot(userId);
+        long version = versions.get(slot);
+        Optional<BigDecimal> loaded = walletRepository.findBalanceByUserId(userId);
+        if (loaded.isPresent()) {
+            cache.put(userId, loaded.get());
+            if (versions.get(slot) != version) {
+                // Evicted while loading: the value may predate that write
+                cache.invalidate(userId);
+            }
+        }
+        return loaded;
+    }
+
+    /**
+     * Drops the user's balance once the current transaction commits (right
+     * away if there is none) and tells the other instances to do the same.
+     */
+    public void evictAfterCommit(UUID userId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evictAndPublish(userId);
+                }
+            });
+        } else {
+            evictAndPublish(userId);
+        }
+    }
+
+    private void evictAndPublish(UUID userId) {
+        // Local copy first, so a slow or remote bus never leaves it stale here
+        evict(userId);
+        invalidationBus.publish(userId);
+    }
+
+    private void evict(UUID userId) {
+        versions.incrementAndGet(slot(userId));
+        cache.invalidate(userId);
+    }
+
+    private static int slot(UUID userId) {
+        return (userId.hashCode() & 0x7fffffff) % VERSION_SLOTS;
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,18 @@
+package com.offlinepay.backend.service;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Carries "this user's balance changed" notices between instances so each
+ * {@link BalanceCache} can drop its copy. The default
+ * {@link LocalBalanceInvalidationBus} only reaches the local instance; a
+ * multi-instance deployment replaces it with a shared channel (Redis pub/sub,
+ * Postgres LISTEN/NOTIFY). Without one, other instances rely on the cache TTL.
+ */
+public interface BalanceInvalidationBus {
+
+    void publish(UUID userId);
+
+    void subscribe(Consumer<UUID> listener);
+}
@@ -0,0 +1,216 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.service.LedgerService.Posting;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+
+/**
+ * Set-based apply for a chunk of already verified offline payments, in one
+ * short transaction:
+ *
+ * <ol>
+ * <li>one nonce query ({@link NonceIndex#findKnown}), one user IN query, and
+ * one IN query that row-locks every wallet involved (plus the stripes of
+ * striped senders);</li>
+ * <li>items are walked in submission order against running balances, so each
+ * sender's balance check sees its earlier transfers in the chunk, exactly as
+ * the per-item path would;</li>
+ * <li>the net delta per wallet is written with one batched UPDATE, then the
+ * ledger postings go out as one batch and the offline and log rows through
+ * {@link OfflineLogWriter} (COPY on PostgreSQL).</li>
+ * </ol>
+ *
+ * Rejections use the same reasons and messages as
+ * {@link OfflineTransactionService}. Any database error rolls the whole chunk
+ * back; {@link OfflineSyncEngine} then re-applies it item by item.
+ */
+@Service
+@RequiredArgsConstructor
+public class BatchSyncApplier {
+
+    private static final String LOCK_WALLETS_SQL = "select user_id, balance, stripe_count from wallets "
+            + "where user_id in (:ids) order by user_id for update";
+    private static final String LOCK_STRIPES_SQL = "select user_id, balance from wallet_stripes "
+            + "where user_id in (:ids) order by user_id, stripe_index for update";
+    private static final String UPDATE_WALLET_SQL = "update wallets set balance = balance + ? where user_id = ?";
+    private static final String EMPTY_STRIPES_SQL = "update wallet_stripes set balance = 0 where user_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final UserRepository userRepository;
+    private final NonceIndex nonceIndex;
+    private final LedgerService ledgerService;
+    private final OfflineLogWriter offlineLogWriter;
+    private final BalanceCache balanceCache;
+    private final PaymentMetrics paymentMetrics;
+
+    /**
+     * Applies the items as one unit. Keep chunks to a few thousand items:
+     * every wallet involved stays locked until the transaction ends.
+     *
+     * @return one result per item, in the order given
+     */
+    @Transactional
+    public SyncResult[] apply(List<OfflineTransactionRequest> items) {
+        SyncResult[] results = new SyncResult[items.size()];
+
+        // Replays, against the database and earlier items of this chunk
+        List<String> nonces = new ArrayList<>(items.size());
+        Set<UUID> userIds = new HashSet<>();
+        for (OfflineTransactionRequest item : items) {
+            nonces.add(item.getNonce());
+            userIds.add(item.getSenderId());
+            userIds.add(item.getReceiverId());
+        }
+        Set<String> known = nonceIndex.findKnown(nonces);
+        Set<UUID> existingUsers = new HashSet<>(userRepository.findExistingIds(userIds));
+
+        Set<String> seen = new HashSet<>();
+        List<Integer> candidates = new ArrayList<>();
+        Set<UUID> participants = new TreeSet<>();
+        for (int i = 0; i < items.size(); i++) {
+            OfflineTransactionRequest item = items.get(i);
+            RejectionReason reason = null;
+            String message = null;
+            if (known.contains(item.getNonce()) || !seen.add(item.getNonce())) {
+                reason = RejectionReason.REPLAY;
+            } else if (!existingUsers.contains(item.getSenderId())) {
+                reason = RejectionReason.SENDER_NOT_FOUND;
+                message = "Sender not found";
+            } else if (!existingUsers.contains(item.getReceiverId())) {
+                reason = RejectionReason.RECEIVER_NOT_FOUND;
+                message = "Receiver not found";
+            } else if (item.getSenderId().equals(item.getReceiverId())) {
+                reason = RejectionReason.SELF_TRANSFER;
+                message = "Cannot send money to yourself";
+            }
+
+            if (reason == null) {
+                candidates.add(i);
+                participants.add(item.getSenderId());
+                participants.add(item.getReceiverId());
+            } else {
+                results[i] = reject(item, reason, message);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return results;
+        }
+
+        // Lock every wallet once, in user id order like the per-item path
+        Map<UUID, BigDecimal> homeBalances = new HashMap<>();
+        Set<UUID> striped = new HashSet<>();
+        namedParameterJdbcTemplate.query(LOCK_WALLETS_SQL, Map.of("ids", participants), rs -> {
+            UUID userId = rs.getObject(1, UUID.class);
+            homeBalances.put(userId, rs.getBigDecimal(2));
+            if (rs.getInt(3) > 1) {
+                striped.add(userId);
+            }
+        });
+
+        // Money on stripes is spendable too, but only striped senders need it
+        Set<UUID> stripedSenders = new TreeSet<>();
+        for (int i : candidates) {
+            if (striped.contains(items.get(i).getSenderId())) {
+                stripedSenders.add(items.get(i).getSenderId());
+            }
+        }
+        Map<UUID, BigDecimal> stripeBalances = new HashMap<>();
+        if (!stripedSenders.isEmpty()) {
+            namedParameterJdbcTemplate.query(LOCK_STRIPES_SQL, Map.of("ids", stripedSenders), rs -> {
+                stripeBalances.merge(rs.getObject(1, UUID.class), rs.getBigDecimal(2), BigDecimal::add);
+            });
+        }
+
+        // Walk the chunk in submission order against running balances
+        Map<UUID, BigDecimal> available = new HashMap<>();
+        homeBalances.forEach((userId, home) ->
+                available.put(userId, home.add(stripeBalances.getOrDefault(userId, BigDecimal.ZERO))));
+        Map<UUID, BigDecimal> deltas = new LinkedHashMap<>();
+        List<OfflineTransactionRequest> applied = new ArrayList<>();
+        for (int i : candidates) {
+            OfflineTransactionRequest item = items.get(i);
+            BigDecimal senderBalance = available.get(item.getSenderId());
+            if (senderBalance == null) {
+                results[i] = reject(item, RejectionReason.SENDER_WALLET_NOT_FOUND, "Sender wallet not found");
+            } else if (!available.containsKey(item.getReceiverId())) {
+                results[i] = reject(item, RejectionReason.RECEIVER_WALLET_NOT_FOUND, "Receiver wallet not found");
+            } else if (senderBalance.compareTo(item.getAmount()) < 0) {
+                results[i] = reject(item, RejectionReason.INSUFFICIENT_BALANCE,
+                        "Insufficient balance for offline transaction");
+            } else {
+                available.put(item.getSenderId(), senderBalance.subtract(item.getAmount()));
+                available.merge(item.getReceiverId(), item.getAmount(), BigDecimal::add);
+                deltas.merge(item.getSenderId(), item.getAmount().negate(), BigDecimal::add);
+                deltas.merge(item.getReceiverId(), item.getAmount(), BigDecimal::add);
+                applied.add(item);
+                results[i] = SyncResult.applied(item.getNonce());
+            }
+        }
+        if (!applied.isEmpty()) {
+            write(applied, deltas, homeBalances, stripeBalances);
+        }
+        return results;
+    }
+
+    private void write(List<OfflineTransactionRequest> applied, Map<UUID, BigDecimal> deltas,
+            Map<UUID, BigDecimal> homeBalances, Map<UUID, BigDecimal> stripeBalances) {
+        // A striped sender whose wallet row cannot cover its net debit has its
+        // stripes folded into the wallet row first
+        List<Object[]> emptiedStripes = new ArrayList<>();
+        for (Map.Entry<UUID, BigDecimal> stripes : stripeBalances.entrySet()) {
+            UUID userId = stripes.getKey();
+            if (homeBalances.get(userId).add(deltas.getOrDefault(userId, BigDecimal.ZERO)).signum() < 0) {
+                deltas.merge(userId, stripes.getValue(), BigDecimal::add);
+                emptiedStripes.add(new Object[] { userId });
+            }
+        }
+        if (!emptiedStripes.isEmpty()) {
+            jdbcTemplate.batchUpdate(EMPTY_STRIPES_SQL, emptiedStripes);
+        }
+
+        List<Object[]> walletUpdates = new ArrayList<>(deltas.size());
+        deltas.forEach((userId, delta) -> {
+            if (delta.signum() != 0) {
+                walletUpdates.add(new Object[] { delta, userId });
+            }
+        });
+        jdbcTemplate.batchUpdate(UPDATE_WALLET_SQL, walletUpdates);
+
+        List<Posting> postings = new ArrayList<>(applied.size());
+        List<String> nonces = new ArrayList<>(applied.size());
+        for (OfflineTransactionRequest item : applied) {
+            postings.add(new Posting(item.getSenderId(), item.getReceiverId(), item.getAmount()));
+            nonces.add(item.getNonce());
+        }
+        ledgerService.postAll("TRANSFER", postings);
+        offlineLogWriter.write(applied);
+        nonceIndex.recordAll(nonces);
+        deltas.keySet().forEach(balanceCache::evictAfterCommit);
+    }
+
+    private SyncResult reject(OfflineTransactionRequest item, RejectionReason reason, String message) {
+        paymentMetrics.rejected(PaymentMetrics.Channel.OFFLINE, reason);
+        return reason == RejectionReason.REPLAY ? SyncResult.duplicate(item.getNonce())
+                : SyncResult.rejected(item.getNonce(), message);
+    }
+}
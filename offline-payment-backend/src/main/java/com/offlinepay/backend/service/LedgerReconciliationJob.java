@@ -0,0 +1,122 @@
+package com.offlinepay.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Background ledger maintenance, walking wallets in user id order one chunk
+ * at a time so neither job holds a long transaction or loads every wallet.
+ *
+ * The snapshot job folds new entries into each active account's snapshot,
+ * which keeps ledger balance reads to a short delta. The reconciliation job
+ * compares each wallet's balance (wallet row plus any stripes) with snapshot
+ * + delta. Both values come from one statement, so they come from the same
+ * database snapshot.
+ */
+@Slf4j
+@Component
+public class LedgerReconciliationJob {
+
+    // Wallets with no snapshot yet, or with entries after their snapshot
+    private static final String SNAPSHOT_CANDIDATES_SQL = "select w.user_id from wallets w "
+            + "left join ledger_snapshots s on s.account_id = w.user_id "
+            + "where w.user_id > ? and (s.account_id is null or exists ("
+            + "select 1 from ledger_entries e where e.account_id = w.user_id and e.id > s.last_entry_id)) "
+            + "order by w.user_id limit ?";
+
+    private static final String RECONCILE_CHUNK_SQL = "select w.user_id, w.balance + coalesce(("
+            + "select sum(ws.balance) from wallet_stripes ws where ws.user_id = w.user_id), 0) as balance, "
+            + "s.balance + coalesce((select sum(e.amount) from ledger_entries e "
+            + "where e.account_id = w.user_id and e.id > s.last_entry_id), 0) as ledger_balance "
+            + "from wallets w left join ledger_snapshots s on s.account_id = w.user_id "
+            + "where w.user_id > ? order by w.user_id limit ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerService ledgerService;
+    private final int chunkSize;
+
+    private final AtomicReference<ReconciliationReport> lastReport = new AtomicReference<>();
+
+    public LedgerReconciliationJob(JdbcTemplate jdbcTemplate, LedgerService ledgerService,
+            @Value("${offlinepay.ledger.chunk-size:500}") int chunkSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.ledgerService = ledgerService;
+        this.chunkSize = chunkSize;
+    }
+
+    /** @return number of snapshots written */
+    @Scheduled(initialDelayString = "${offlinepay.ledger.snapshot-interval-ms:300000}",
+            fixedDelayString = "${offlinepay.ledger.snapshot-interval-ms:300000}")
+    public int snapshotAccounts() {
+        int written = 0;
+        UUID after = new UUID(0L, 0L);
+        List<UUID> chunk;
+        do {
+            chunk = jdbcTemplate.queryForList(SNAPSHOT_CANDIDATES_SQL, UUID.class, after, chunkSize);
+            for (UUID accountId : chunk) {
+                // One short transaction per account, each holding only that wallet's lock
+                if (ledgerService.snapshot(accountId).isPresent()) {
+                    written++;
+                }
+                after = accountId;
+            }
+        } while (chunk.size() == chunkSize);
+
+        log.info("Ledger snapshot run wrote {} snapshots", written);
+        return written;
+    }
+
+    @Scheduled(initialDelayString = "${offlinepay.ledger.reconcile-interval-ms:3600000}",
+            fixedDelayString = "${offlinepay.ledger.reconcile-interval-ms:3600000}")
+    public ReconciliationReport reconcile() {
+        long start = System.currentTimeMillis();
+        long[] counts = new long[3]; // checked, mismatched, not yet snapshotted
+        UUID[] after = { new UUID(0L, 0L) };
+        int rows;
+        do {
+            int[] chunkRows = { 0 };
+            jdbcTemplate.query(RECONCILE_CHUNK_SQL, rs -> {
+                chunkRows[0]++;
+                UUID accountId = rs.getObject("user_id", UUID.class);
+                BigDecimal walletBalance = rs.getBigDecimal("balance");
+                BigDecimal ledgerBalance = rs.getBigDecimal("ledger_balance");
+                after[0] = accountId;
+
+                if (ledgerBalance == null) {
+                    // Opened by the next snapshot run
+                    counts[2]++;
+                    return;
+                }
+                counts[0]++;
+                if (walletBalance.compareTo(ledgerBalance) != 0) {
+                    counts[1]++;
+                    log.error("Ledger mismatch for wallet of user {}: wallet balance {}, ledger balance {}",
+                            accountId, walletBalance, ledgerBalance);
+                }
+            }, after[0], chunkSize);
+            rows = chunkRows[0];
+        } while (rows == chunkSize);
+
+        ReconciliationReport report = new ReconciliationReport(counts[0], counts[1], counts[2],
+                System.currentTimeMillis() - start);
+        lastReport.set(report);
+        log.info("Ledger reconciliation: {}", report);
+        return report;
+    }
+
+    /** Result of the most recent reconciliation run, or null before the first one. */
+    public ReconciliationReport lastReport() {
+        return lastReport.get();
+    }
+
+    public record ReconciliationReport(long checked, long mismatched, long notSnapshotted, long durationMs) {
+    }
+}
@@ -0,0 +1,148 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.LedgerSnapshot;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.metrics.PaymentMetrics.Stage;
+import com.offlinepay.backend.repository.LedgerEntryRepository;
+import com.offlinepay.backend.repository.LedgerSnapshotRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository.StripeBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Append-only double-entry audit trail of the wallet balances.
+ *
+ * wallets.balance (plus any stripes) stays the balance of record: requests
+ * read it, and the conditional UPDATE on it is what refuses an overdraft.
+ * Every change to it also posts a debit and a credit entry here in the same
+ * transaction, so the ledger can prove or disprove the stored balances. A
+ * ledger balance is the account's latest snapshot plus the entries after it.
+ *
+ * Entry ids come from an identity column and are assigned after the wallet
+ * row (or, for a striped wallet, the credited stripe row) is locked. A
+ * snapshot takes all of those locks, so once it commits every later entry
+ * for that account has a greater id, and the snapshot + delta read never
+ * misses or double-counts an entry.
+ *
+ * The first snapshot of a wallet adopts the wallet's current balance as its
+ * opening balance, which brings wallets created before the ledger existed
+ * onto it. From then on {@link LedgerReconciliationJob} checks
+ * wallets.balance against the ledger.
+ */
+@Service
+@RequiredArgsConstructor
+public class LedgerService {
+
+    /** Counterparty for money entering or leaving the system (deposits, withdrawals). */
+    public static final UUID EXTERNAL_ACCOUNT = new UUID(0L, 0L);
+
+    private static final String INSERT_SQL = "insert into ledger_entries "
+            + "(account_id, posting_id, amount, entry_type, created_at) values (?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final LedgerEntryRepository ledgerEntryRepository;
+    private final LedgerSnapshotRepository ledgerSnapshotRepository;
+    private final WalletRepository walletRepository;
+    private final WalletStripeRepository walletStripeRepository;
+    private final PaymentMetrics paymentMetrics;
+
+    /**
+     * Appends one posting: amount leaves debitAccount and reaches
+     * creditAccount. Both entries go out as one JDBC batch. Must run after the
+     * matching wallet UPDATEs in the same transaction.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public UUID post(String entryType, UUID debitAccount, UUID creditAccount, BigDecimal amount) {
+        long start = System.nanoTime();
+        UUID postingId = UUID.randomUUID();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        jdbcTemplate.batchUpdate(INSERT_SQL, List.of(
+                new Object[] { debitAccount, postingId, amount.negate(), entryType, now },
+                new Object[] { creditAccount, postingId, amount, entryType, now }));
+        paymentMetrics.record(Stage.LEDGER_POST, start);
+        return postingId;
+    }
+
+    /**
+     * Appends many postings of one type as a single JDBC batch, two entries
+     * per posting in list order. Same locking rule as {@link #post}.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void postAll(String entryType, List<Posting> postings) {
+        long start = System.nanoTime();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<Object[]> rows = new ArrayList<>(postings.size() * 2);
+        for (Posting posting : postings) {
+            UUID postingId = UUID.randomUUID();
+            rows.add(new Object[] { posting.debitAccount(), postingId, posting.amount().negate(), entryType, now });
+            rows.add(new Object[] { posting.creditAccount(), postingId, posting.amount(), entryType, now });
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+        paymentMetrics.record(Stage.LEDGER_POST, start);
+    }
+
+    public record Posting(UUID debitAccount, UUID creditAccount, BigDecimal amount) {
+    }
+
+    /**
+     * The account's balance according to the ledger, for audits and checks
+     * against wallets.balance; requests do not read it. Snapshot + delta: one
+     * primary-key read and one indexed range sum.
+     */
+    @Transactional(readOnly = true)
+    public BigDecimal balanceOf(UUID accountId) {
+        return ledgerSnapshotRepository.findById(accountId)
+                .map(s -> s.getBalance().add(ledgerEntryRepository.sumAfter(accountId, s.getLastEntryId())))
+                .orElseGet(() -> ledgerEntryRepository.sumAfter(accountId, 0L));
+    }
+
+    /**
+     * Folds the account's new entries into its snapshot, or opens one from
+     * the wallet balance. Holds the wallet and stripe row locks for the
+     * duration.
+     *
+     * @return empty if the account has no wallet
+     */
+    @Transactional
+    public Optional<LedgerSnapshot> snapshot(UUID accountId) {
+        Optional<BigDecimal> walletBalance = walletRepository.lockBalanceByUserId(accountId);
+        if (walletBalance.isEmpty()) {
+            return Optional.empty();
+        }
+
+        // Striped wallets take credits on stripe rows, so lock those too
+        BigDecimal stripeBalance = BigDecimal.ZERO;
+        for (StripeBalance stripe : walletStripeRepository.lockBalancesByUserId(accountId)) {
+            stripeBalance = stripeBalance.add(stripe.getBalance());
+        }
+        BigDecimal openingBalance = walletBalance.get().add(stripeBalance);
+
+        long lastEntryId = ledgerEntryRepository.findLastIdByAccountId(accountId);
+        LedgerSnapshot snapshot = ledgerSnapshotRepository.findById(accountId)
+                .map(s -> {
+                    s.setBalance(s.getBalance().add(ledgerEntryRepository.sumAfter(accountId, s.getLastEntryId())));
+                    return s;
+                })
+                .orElseGet(() -> LedgerSnapshot.builder()
+                        .accountId(accountId)
+                        .balance(openingBalance)
+                        .build());
+
+        snapshot.setLastEntryId(lastEntryId);
+        snapshot.setTakenAt(LocalDateTime.now());
+        return Optional.of(ledgerSnapshotRepository.save(snapshot));
+    }
+}
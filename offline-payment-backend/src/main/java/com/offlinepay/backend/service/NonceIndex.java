@@ -0,0 +1,206 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.cache.LruCache;
+import com.offlinepay.backend.cache.ScalableBloomFilter;
+import com.offlinepay.backend.repository.OfflineTransactionRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Replay-protection index in front of {@link OfflineTransactionRepository#existsByNonce}.
+ *
+ * A scalable Bloom filter warmed from offline_transactions.nonce answers
+ * "definitely new" for most nonces without a query; a small LRU of recently
+ * committed nonces answers repeats. The database is only asked when the filter
+ * says "maybe seen". The unique constraint on nonce stays the final authority
+ * for nonces written by other instances.
+ */
+@Slf4j
+@Component
+public class NonceIndex {
+
+    private static final Boolean SEEN = Boolean.TRUE;
+    // Keeps IN lists well under driver bind-parameter limits
+    private static final int IN_CHUNK = 1000;
+
+    private final OfflineTransactionRepository offlineTransactionRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ScalableBloomFilter filter;
+    private final LruCache<String, Boolean> recent;
+
+    // Until warm-up finishes the filter is incomplete and every check goes to the DB
+    private volatile boolean warmed;
+
+    private final LongAdder filterNegatives = new LongAdder();
+    private final LongAdder databaseChecks = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder recentHits = new LongAdder();
+
+    public NonceIndex(OfflineTransactionRepository offlineTransactionRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${offlinepay.nonce-index.expected-nonces:1000000}") long expectedNonces,
+            @Value("${offlinepay.nonce-index.false-positive-rate:0.01}") double falsePositiveRate,
+            @Value("${offlinepay.nonce-index.recent-size:50000}") int recentSize) {
+        this.offlineTransactionRepository = offlineTransactionRepository;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.filter = new ScalableBloomFilter(expectedNonces, falsePositiveRate);
+        this.recent = new LruCache<>(recentSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        long start = System.currentTimeMillis();
+        try {
+            readOnlyTransaction.executeWithoutResult(status -> {
+                try (Stream<String> nonces = offlineTransactionRepository.streamAllNonces()) {
+                    nonces.forEach(filter::put);
+                }
+            });
+            warmed = true;
+            log.info("Nonce index warmed with {} nonces in {} ms ({} bytes)",
+                    filter.approximateElementCount(), System.currentTimeMillis() - start, filter.memoryBytes());
+        } catch (Exception e) {
+            log.warn("Nonce index warm-up failed, falling back to database checks: {}", e.getMessage());
+        }
+    }
+
+    /** @return true if the nonce has already been used */
+    public boolean isKnown(String nonce) {
+        if (recent.get(nonce) != null) {
+            recentHits.increment();
+            return true;
+        }
+        if (warmed && !filter.mightContain(nonce)) {
+            filterNegatives.increment();
+            return false;
+        }
+
+        databaseChecks.increment();
+        boolean exists = offlineTransactionRepository.existsByNonce(nonce);
+        if (exists) {
+            recent.put(nonce, SEEN);
+        } else if (warmed) {
+            falsePositives.increment();
+        }
+        return exists;
+    }
+
+    /**
+     * Batch form of {@link #isKnown}: the nonces the filter cannot rule out
+     * are checked with one IN query per {@value #IN_CHUNK} nonces.
+     *
+     * @return the subset of nonces that have already been used
+     */
+    public Set<String> findKnown(Collection<String> nonces) {
+        Set<String> known = new HashSet<>();
+        List<String> maybe = new ArrayList<>();
+        for (String nonce : nonces) {
+            if (recent.get(nonce) != null) {
+                recentHits.increment();
+                known.add(nonce);
+            } else if (warmed && !filter.mightContain(nonce)) {
+                filterNegatives.increment();
+            } else {
+                maybe.add(nonce);
+            }
+        }
+
+        for (int from = 0; from < maybe.size(); from += IN_CHUNK) {
+            List<String> chunk = maybe.subList(from, Math.min(from + IN_CHUNK, maybe.size()));
+            databaseChecks.add(chunk.size());
+            List<String> existing = offlineTransactionRepository.findExistingNonces(chunk);
+            for (String nonce : existing) {
+                recent.put(nonce, SEEN);
+            }
+            known.addAll(existing);
+            if (warmed) {
+                falsePositives.add(chunk.size() - existing.size());
+            }
+        }
+        return known;
+    }
+
+    /**
+     * Records a nonce that is being written. The filter is updated straight
+     * away (a rollback only costs a false positive); the recent cache is only
+     * updated after commit so a rolled-back nonce is never reported as used.
+     */
+    public void record(String nonce) {
+        filter.put(nonce);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    recent.put(nonce, SEEN);
+                }
+            });
+        } else {
+            recent.put(nonce, SEEN);
+        }
+    }
+
+    /** Batch form of {@link #record}, with one commit callback for all nonces. */
+    public void recordAll(Collection<String> nonces) {
+        nonces.forEach(filter::put);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    nonces.forEach(nonce -> recent.put(nonce, SEEN));
+                }
+            });
+        } else {
+            nonces.forEach(nonce -> recent.put(nonce, SEEN));
+        }
+    }
+
+    public boolean isWarmed() {
+        return warmed;
+    }
+
+    /** Share of filter "maybe" answers that the database proved wrong. */
+    public double observedFalsePositiveRate() {
+        long positives = warmed ? databaseChecks.sum() : 0;
+        return positives == 0 ? 0.0 : (double) falsePositives.sum() / positives;
+    }
+
+    public double expectedFalsePositiveRate() {
+        return filter.expectedFalsePositiveRate();
+    }
+
+    public long memoryBytes() {
+        return filter.memoryBytes();
+    }
+
+    public long filterNegativeCount() {
+        return filterNegatives.sum();
+    }
+
+    public long databaseCheckCount() {
+        return databaseChecks.sum();
+    }
+
+    public long falsePositiveCount() {
+        return falsePositives.sum();
+    }
+
+    public long recentHitCount() {
+        return recentHits.sum();
+    }
+}
@@ -0,0 +1,202 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.entity.Transaction;
+import com.offlinepay.backend.entity.TransactionStatus;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.metrics.PaymentMetrics.Stage;
+import com.offlinepay.backend.repository.UserRepository;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the offline_transactions and transactions rows for a chunk applied
+ * by {@link BatchSyncApplier}, in the caller's transaction.
+ *
+ * On PostgreSQL, chunks of at least offlinepay.sync.copy-min-rows rows are
+ * streamed with COPY into a session-local staging table and moved into both
+ * tables by one INSERT ... SELECT, with ON CONFLICT (nonce) DO NOTHING. If any
+ * nonce was already taken (another instance won the race) the write fails
+ * with {@link DuplicateKeyException}, so the caller's transaction, balance
+ * updates included, rolls back.
+ *
+ * Smaller chunks and other databases (H2 in tests) use a JDBC batch insert for
+ * offline_transactions and the batched {@link TransactionLogBatcher} for the
+ * log rows.
+ */
+@Component
+public class OfflineLogWriter {
+
+    private static final String INSERT_OFFLINE_SQL = "insert into offline_transactions "
+            + "(id, sender_id, receiver_id, amount, nonce, signature, status, synced_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Temp tables are per connection; rows vanish at commit, the table stays
+    // with the pooled connection for the next chunk
+    private static final String CREATE_STAGING_SQL = "create temp table if not exists offline_ingest_staging ("
+            + "id uuid not null, log_id uuid not null, sender_id uuid not null, receiver_id uuid not null, "
+            + "amount numeric(19, 2) not null, nonce varchar(255) not null, signature varchar(1000) not null"
+            + ") on commit delete rows";
+    private static final String COPY_SQL = "copy offline_ingest_staging "
+            + "(id, log_id, sender_id, receiver_id, amount, nonce, signature) from stdin with (format csv)";
+    private static final String MERGE_SQL = "with inserted as ("
+            + "insert into offline_transactions (id, sender_id, receiver_id, amount, nonce, signature, status, synced_at) "
+            + "select id, sender_id, receiver_id, amount, nonce, signature, 'COMPLETED', ? from offline_ingest_staging "
+            + "on conflict (nonce) do nothing returning id) "
+            + "insert into transactions (id, sender_id, receiver_id, amount, status, transaction_type, created_at) "
+            + "select s.log_id, s.sender_id, s.receiver_id, s.amount, 'COMPLETED', 'OFFLINE', ? "
+            + "from offline_ingest_staging s join inserted i on i.id = s.id";
+
+    private static final int COPY_BUFFER_CHARS = 64 * 1024;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionLogBatcher transactionLogBatcher;
+    private final UserRepository userRepository;
+    private final PaymentMetrics paymentMetrics;
+    private final int copyMinRows;
+
+    public OfflineLogWriter(JdbcTemplate jdbcTemplate, TransactionLogBatcher transactionLogBatcher,
+            UserRepository userRepository, PaymentMetrics paymentMetrics,
+            @Value("${offlinepay.sync.copy-min-rows:200}") int copyMinRows) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionLogBatcher = transactionLogBatcher;
+        this.userRepository = userRepository;
+        this.paymentMetrics = paymentMetrics;
+        this.copyMinRows = copyMinRows;
+    }
+
+    /**
+     * Inserts one offline row and one OFFLINE log row per item.
+     *
+     * @throws DuplicateKeyException if a nonce is already in offline_transactions
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void write(List<OfflineTransactionRequest> rows) {
+        long start = System.nanoTime();
+        LocalDateTime now = LocalDateTime.now();
+        boolean copied = rows.size() >= copyMinRows
+                && Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> copy(con, rows, now)));
+        if (!copied) {
+            insert(rows, now);
+        }
+        paymentMetrics.record(Stage.LOG_INSERT, start);
+    }
+
+    // Returns false, having written nothing, if this is not a PostgreSQL connection
+    private Boolean copy(Connection connection, List<OfflineTransactionRequest> rows, LocalDateTime now)
+            throws SQLException {
+        if (!connection.isWrapperFor(PGConnection.class)) {
+            return false;
+        }
+        try (var statement = connection.createStatement()) {
+            statement.execute(CREATE_STAGING_SQL);
+        }
+
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL);
+        try {
+            StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 2048);
+            for (OfflineTransactionRequest row : rows) {
+                appendCsvRow(buffer, row);
+                if (buffer.length() >= COPY_BUFFER_CHARS) {
+                    flush(copyIn, buffer);
+                }
+            }
+            flush(copyIn, buffer);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+
+        Timestamp syncedAt = Timestamp.valueOf(now);
+        int merged;
+        try (var merge = connection.prepareStatement(MERGE_SQL)) {
+            merge.setTimestamp(1, syncedAt);
+            merge.setTimestamp(2, syncedAt);
+            merged = merge.executeUpdate();
+        }
+        if (merged != rows.size()) {
+            throw new DuplicateKeyException((rows.size() - merged) + " of " + rows.size()
+                    + " nonces were synced concurrently");
+        }
+        return true;
+    }
+
+    private static void flush(CopyIn copyIn, StringBuilder buffer) throws SQLException {
+        if (buffer.length() > 0) {
+            byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+            copyIn.writeToCopy(bytes, 0, bytes.length);
+            buffer.setLength(0);
+        }
+    }
+
+    // One CSV line. The nonce and signature come from the client, so they are
+    // always quoted; ids and amounts cannot contain separators.
+    static void appendCsvRow(StringBuilder out, OfflineTransactionRequest row) {
+        out.append(UUID.randomUUID()).append(',')
+                .append(UUID.randomUUID()).append(',')
+                .append(row.getSenderId()).append(',')
+                .append(row.getReceiverId()).append(',')
+                .append(row.getAmount().toPlainString()).append(',');
+        appendQuoted(out, row.getNonce());
+        out.append(',');
+        appendQuoted(out, row.getSignature());
+        out.append('\n');
+    }
+
+    private static void appendQuoted(StringBuilder out, String value) {
+        out.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                out.append('"');
+            }
+            out.append(c);
+        }
+        out.append('"');
+    }
+
+    private void insert(List<OfflineTransactionRequest> rows, LocalDateTime now) {
+        Timestamp syncedAt = Timestamp.valueOf(now);
+        jdbcTemplate.batchUpdate(INSERT_OFFLINE_SQL, rows, rows.size(), (ps, row) -> {
+            ps.setObject(1, UUID.randomUUID());
+            ps.setObject(2, row.getSenderId());
+            ps.setObject(3, row.getReceiverId());
+            ps.setBigDecimal(4, row.getAmount());
+            ps.setString(5, row.getNonce());
+            ps.setString(6, row.getSignature());
+            ps.setString(7, TransactionStatus.COMPLETED.name());
+            ps.setTimestamp(8, syncedAt);
+        });
+
+        List<Transaction> logRows = new ArrayList<>(rows.size());
+        for (OfflineTransactionRequest row : rows) {
+            logRows.add(Transaction.builder()
+                    .sender(userRepository.getReferenceById(row.getSenderId()))
+                    .receiver(userRepository.getReferenceById(row.getReceiverId()))
+                    .amount(row.getAmount())
+                    .status(TransactionStatus.COMPLETED)
+                    .transactionType("OFFLINE")
+                    .createdAt(now)
+                    .build());
+        }
+        transactionLogBatcher.appendAll(logRows);
+    }
+}
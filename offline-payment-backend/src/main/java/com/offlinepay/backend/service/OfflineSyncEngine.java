@@ -0,0 +1,182 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.metrics.PaymentMetrics.Stage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Applies a batch of offline payments.
+ *
+ * Signatures are checked first for the whole batch by
+ * {@link SignatureVerificationStage}. By default verified items are then
+ * applied in chunks of offlinepay.sync.batch-size by {@link BatchSyncApplier}:
+ * a handful of set-based statements and one short transaction per chunk,
+ * chunks in submission order. A chunk that fails with a database error (a
+ * nonce committed concurrently, a lock timeout) is rolled back and re-applied
+ * item by item.
+ *
+ * The per-item path (also used with offlinepay.sync.batch-apply=false) splits
+ * items into one group per sender wallet, runs groups concurrently on the sync
+ * executor, and applies items inside a group in submission order. Groups that
+ * credit the same receiver are serialized by the row locks taken in
+ * {@link WalletMutationService}. Every item commits in its own short
+ * transaction through
+ * {@link OfflineTransactionService#applyVerifiedOfflineTransaction}.
+ */
+@Slf4j
+@Service
+public class OfflineSyncEngine {
+
+    private final OfflineTransactionService offlineTransactionService;
+    private final SignatureVerificationStage signatureVerificationStage;
+    private final Executor syncExecutor;
+    private final PaymentMetrics paymentMetrics;
+    private final BatchSyncApplier batchSyncApplier;
+    private final boolean batchApply;
+    private final int batchSize;
+
+    public OfflineSyncEngine(OfflineTransactionService offlineTransactionService,
+            SignatureVerificationStage signatureVerificationStage,
+            @Qualifier("syncExecutor") Executor syncExecutor,
+            PaymentMetrics paymentMetrics,
+            BatchSyncApplier batchSyncApplier,
+            @Value("${offlinepay.sync.batch-apply:true}") boolean batchApply,
+            @Value("${offlinepay.sync.batch-size:1000}") int batchSize) {
+        this.offlineTransactionService = offlineTransactionService;
+        this.signatureVerificationStage = signatureVerificationStage;
+        this.syncExecutor = syncExecutor;
+        this.paymentMetrics = paymentMetrics;
+        this.batchSyncApplier = batchSyncApplier;
+        this.batchApply = batchApply;
+        this.batchSize = batchSize;
+    }
+
+    public List<SyncResult> syncOfflineTransactions(List<OfflineTransactionRequest> transactions) {
+        SyncResult[] results = new SyncResult[transactions.size()];
+        paymentMetrics.syncBatch(transactions.size());
+
+        // Stage 1: signatures, with no connection held during the crypto work
+        long start = System.nanoTime();
+        RejectionReason[] rejections = signatureVerificationStage.verify(transactions);
+        paymentMetrics.record(Stage.SYNC_VERIFY, start);
+        List<Integer> verified = new ArrayList<>();
+        for (int i = 0; i < transactions.size(); i++) {
+            if (rejections[i] == null) {
+                verified.add(i);
+            } else {
+                paymentMetrics.rejected(PaymentMetrics.Channel.OFFLINE, rejections[i]);
+                results[i] = SyncResult.rejected(transactions.get(i).getNonce(), describe(rejections[i]));
+            }
+        }
+
+        // Stage 2: apply verified items
+        start = System.nanoTime();
+        if (batchApply) {
+            applyInChunks(transactions, verified, results);
+        } else {
+            applyPerItem(transactions, verified, results);
+        }
+        paymentMetrics.record(Stage.SYNC_APPLY, start);
+
+        for (SyncResult result : results) {
+            paymentMetrics.syncOutcome(result.getOutcome());
+        }
+        return Arrays.asList(results);
+    }
+
+    private void applyInChunks(List<OfflineTransactionRequest> transactions, List<Integer> verified,
+            SyncResult[] results) {
+        for (int from = 0; from < verified.size(); from += batchSize) {
+            List<Integer> chunk = verified.subList(from, Math.min(from + batchSize, verified.size()));
+            List<OfflineTransactionRequest> items = new ArrayList<>(chunk.size());
+            for (int index : chunk) {
+                items.add(transactions.get(index));
+            }
+            try {
+                SyncResult[] applied = batchSyncApplier.apply(items);
+                for (int i = 0; i < chunk.size(); i++) {
+                    results[chunk.get(i)] = applied[i];
+                }
+            } catch (DataAccessException e) {
+                log.info("Batch apply of {} items rolled back, retrying one by one: {}", chunk.size(), e.getMessage());
+                applyPerItem(transactions, chunk, results);
+            }
+        }
+    }
+
+    // One group per sender in parallel, one transaction per item
+    private void applyPerItem(List<OfflineTransactionRequest> transactions, List<Integer> indexes,
+            SyncResult[] results) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (List<Integer> group : partition(transactions, indexes)) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                for (int index : group) {
+                    results[index] = apply(transactions.get(index));
+                }
+            }, syncExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    private SyncResult apply(OfflineTransactionRequest request) {
+        try {
+            offlineTransactionService.applyVerifiedOfflineTransaction(request);
+            return SyncResult.applied(request.getNonce());
+        } catch (PaymentRejectedException e) {
+            if (e.getReason() == RejectionReason.REPLAY) {
+                return SyncResult.duplicate(request.getNonce());
+            }
+            return SyncResult.rejected(request.getNonce(), e.getMessage());
+        } catch (DataIntegrityViolationException e) {
+            // Another request committed the same nonce between our check and insert
+            return SyncResult.duplicate(request.getNonce());
+        } catch (Exception e) {
+            log.warn("Failed to sync transaction {}: {}", request.getNonce(), e.getMessage());
+            return SyncResult.rejected(request.getNonce(), e.getMessage());
+        }
+    }
+
+    // Same wording as the exceptions of the per-item path and the results
+    // of BatchSyncApplier, so a reason reads the same whichever path saw it
+    static String describe(RejectionReason reason) {
+        return switch (reason) {
+            case REPLAY -> "Nonce already synced";
+            case SENDER_NOT_FOUND -> "Sender not found";
+            case RECEIVER_NOT_FOUND -> "Receiver not found";
+            case SELF_TRANSFER -> "Cannot send money to yourself";
+            case BAD_SIGNATURE -> "Invalid digital signature";
+            case SENDER_WALLET_NOT_FOUND -> "Sender wallet not found";
+            case RECEIVER_WALLET_NOT_FOUND -> "Receiver wallet not found";
+            case WALLET_NOT_FOUND -> "Wallet not found";
+            case INSUFFICIENT_BALANCE -> "Insufficient balance for offline transaction";
+        };
+    }
+
+    // Groups item indexes by sender. Order inside a group follows the
+    // submitted order, which keeps each sender's transfers sequential.
+    static List<List<Integer>> partition(List<OfflineTransactionRequest> transactions, List<Integer> indexes) {
+        Map<UUID, List<Integer>> groups = new LinkedHashMap<>();
+        for (int i : indexes) {
+            groups.computeIfAbsent(transactions.get(i).getSenderId(), k -> new ArrayList<>()).add(i);
+        }
+        return new ArrayList<>(groups.values());
+    }
+}
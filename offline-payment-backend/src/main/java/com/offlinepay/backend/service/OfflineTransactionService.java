@@ -1,75 +1,101 @@
 package com.offlinepay.backend.service;
 
 import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.UserSummary;
 import com.offlinepay.backend.entity.OfflineTransaction;
 import com.offlinepay.backend.entity.Transaction;
 import com.offlinepay.backend.entity.TransactionStatus;
-import com.offlinepay.backend.entity.User;
-import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.metrics.PaymentMetrics.Stage;
 import com.offlinepay.backend.repository.OfflineTransactionRepository;
-import com.offlinepay.backend.repository.TransactionRepository;
 import com.offlinepay.backend.repository.UserRepository;
-import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.PublicKeyCache;
+import com.offlinepay.backend.security.SignatureVerifier;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
-import java.util.List;
-import java.util.Optional;
+import java.util.UUID;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class OfflineTransactionService {
 
     private final OfflineTransactionRepository offlineTransactionRepository;
-    private final TransactionRepository transactionRepository;
+    private final TransactionLogBatcher transactionLogBatcher;
     private final UserRepository userRepository;
-    private final WalletRepository walletRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final WalletMutationService walletMutationService;
+    private final PublicKeyCache publicKeyCache;
+    private final SignatureVerifier signatureVerifier;
+    private final NonceIndex nonceIndex;
+    private final PaymentMetrics paymentMetrics;
 
     @Transactional
     public OfflineTransaction processOfflineTransaction(OfflineTransactionRequest request) {
-        // Prevent Replay Attack
-        Optional<OfflineTransaction> existing = offlineTransactionRepository.findByNonce(request.getNonce());
-        if (existing.isPresent()) {
-            throw new RuntimeException("Transaction with this nonce already exists (Replay Attack Detected)");
-        }
-
-        User sender = userRepository.findById(request.getSenderId())
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
+        return apply(request, true);
+    }
 
-        User receiver = userRepository.findById(request.getReceiverId())
-                .orElseThrow(() -> new RuntimeException("Receiver not found"));
+    // Used by the batch sync after SignatureVerificationStage has already
+    // checked the signature, so the ECDSA work is not repeated with a
+    // connection held.
+    @Transactional
+    public OfflineTransaction applyVerifiedOfflineTransaction(OfflineTransactionRequest request) {
+        return apply(request, false);
+    }
 
-        if (sender.getId().equals(receiver.getId())) {
-            throw new RuntimeException("Cannot send money to yourself");
+    private OfflineTransaction apply(OfflineTransactionRequest request, boolean verifySignature) {
+        try {
+            return applyTimed(request, verifySignature);
+        } catch (PaymentRejectedException e) {
+            paymentMetrics.rejected(PaymentMetrics.Channel.OFFLINE, e.getReason());
+            throw e;
         }
+    }
 
-        // Verify digital signature (Placeholder for actual cryptographic validation)
-        boolean isSignatureValid = verifySignature(request, sender);
-        if (!isSignatureValid) {
-            throw new RuntimeException("Invalid digital signature");
+    private OfflineTransaction applyTimed(OfflineTransactionRequest request, boolean verifySignature) {
+        // Prevent Replay Attack
+        long start = System.nanoTime();
+        boolean replay = nonceIndex.isKnown(request.getNonce());
+        paymentMetrics.record(Stage.NONCE_CHECK, start);
+        if (replay) {
+            throw new PaymentRejectedException(RejectionReason.REPLAY,
+                    "Transaction with this nonce already exists (Replay Attack Detected)");
         }
 
-        Wallet senderWallet = walletRepository.findByUser(sender)
-                .orElseThrow(() -> new RuntimeException("Sender wallet not found"));
+        // Cached id/name/email only; the user rows' TEXT columns are not read
+        start = System.nanoTime();
+        UserSummary sender = userSummaryCache.get(request.getSenderId())
+                .orElseThrow(() -> new PaymentRejectedException(RejectionReason.SENDER_NOT_FOUND, "Sender not found"));
 
-        if (senderWallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient balance for offline transaction");
-        }
-
-        Wallet receiverWallet = walletRepository.findByUser(receiver)
-                .orElseThrow(() -> new RuntimeException("Receiver wallet not found"));
+        UserSummary receiver = userSummaryCache.get(request.getReceiverId())
+                .orElseThrow(() -> new PaymentRejectedException(RejectionReason.RECEIVER_NOT_FOUND, "Receiver not found"));
+        paymentMetrics.record(Stage.USER_LOOKUP, start);
 
-        // Deduct from sender
-        senderWallet.setBalance(senderWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(senderWallet);
+        if (sender.id().equals(receiver.id())) {
+            throw new PaymentRejectedException(RejectionReason.SELF_TRANSFER, "Cannot send money to yourself");
+        }
 
-        // Add to receiver
-        receiverWallet.setBalance(receiverWallet.getBalance().add(request.getAmount()));
-        walletRepository.save(receiverWallet);
+        // Verify digital signature
+        if (verifySignature) {
+            String encodedKey = userRepository.findPublicKeyById(sender.id()).orElse(null);
+            start = System.nanoTime();
+            boolean valid = verifySignature(request, sender.id(), encodedKey);
+            paymentMetrics.record(Stage.SIGNATURE_VERIFY, start);
+            if (!valid) {
+                throw new PaymentRejectedException(RejectionReason.BAD_SIGNATURE, "Invalid digital signature");
+            }
+        }
 
-        // Save into offline transactions log
+        // Save into offline transactions log. Flushed at once: the unique
+        // nonce is the replay guard, so a nonce committed concurrently since
+        // the check above fails here, before any balance is touched
+        start = System.nanoTime();
         OfflineTransaction offlineTransaction = OfflineTransaction.builder()
                 .senderId(request.getSenderId())
                 .receiverId(request.getReceiverId())
@@ -80,63 +106,41 @@ public class OfflineTransactionService {
                 .syncedAt(LocalDateTime.now())
                 .build();
 
-        offlineTransactionRepository.save(offlineTransaction);
+        offlineTransactionRepository.saveAndFlush(offlineTransaction);
+        paymentMetrics.record(Stage.LOG_INSERT, start);
+
+        // Conditional debit + credit, two UPDATEs with no overdraft race
+        walletMutationService.transfer(sender.id(), receiver.id(), request.getAmount(),
+                "Insufficient balance for offline transaction");
+        nonceIndex.record(request.getNonce());
 
-        // Also save to main transactions log
+        // Also save to main transactions log (batched into the commit)
+        start = System.nanoTime();
         Transaction transaction = Transaction.builder()
-                .sender(sender)
-                .receiver(receiver)
+                .sender(userRepository.getReferenceById(sender.id()))
+                .receiver(userRepository.getReferenceById(receiver.id()))
                 .amount(request.getAmount())
                 .status(TransactionStatus.COMPLETED)
                 .transactionType("OFFLINE")
                 .build();
 
-        transactionRepository.save(transaction);
+        transactionLogBatcher.append(transaction);
+        paymentMetrics.record(Stage.LOG_INSERT, start);
 
         return offlineTransaction;
     }
 
-    @Transactional
-    public void syncOfflineTransactions(List<OfflineTransactionRequest> transactions) {
-        for (OfflineTransactionRequest request : transactions) {
-            try {
-                processOfflineTransaction(request);
-            } catch (Exception e) {
-                // Log and continue syncing the rest
-                System.err.println("Failed to sync transaction " + request.getNonce() + ": " + e.getMessage());
-            }
-        }
-    }
-
-    private boolean verifySignature(OfflineTransactionRequest request, User sender) {
+    private boolean verifySignature(OfflineTransactionRequest request, UUID senderId, String encodedKey) {
         try {
-            if (sender.getPublicKey() == null || sender.getPublicKey().isBlank()) {
-                System.err.println("Sender does not have a registered public key.");
+            if (encodedKey == null || encodedKey.isBlank()) {
+                log.debug("Sender {} does not have a registered public key", senderId);
                 return false;
             }
 
-            // Decode the SPKI Base64 string from the user
-            byte[] pkBytes = java.util.Base64.getDecoder().decode(sender.getPublicKey());
-            java.security.spec.X509EncodedKeySpec spec = new java.security.spec.X509EncodedKeySpec(pkBytes);
-            java.security.KeyFactory kf = java.security.KeyFactory.getInstance("EC");
-            java.security.PublicKey publicKey = kf.generatePublic(spec);
-
-            // Deterministic reconstruction of the payload
-            String payloadStr = request.getSenderId() + ":" + request.getReceiverId() + ":" + request.getAmount() + ":"
-                    + request.getNonce();
-            byte[] data = payloadStr.getBytes(java.nio.charset.StandardCharsets.UTF_8);
-
-            // WebCrypto's ECDSA signature is in P1363 raw (r||s) format instead of DER
-            java.security.Signature sig = java.security.Signature.getInstance("SHA256withECDSAinP1363Format");
-            sig.initVerify(publicKey);
-            sig.update(data);
-
-            // Decode the base64 signature
-            byte[] signatureBytes = java.util.Base64.getDecoder().decode(request.getSignature());
-
-            return sig.verify(signatureBytes);
+            java.security.PublicKey publicKey = publicKeyCache.get(senderId, encodedKey);
+            return signatureVerifier.verify(request, publicKey);
         } catch (Exception e) {
-            System.err.println("Digital Signature verification exception: " + e.getMessage());
+            log.warn("Signature verification failed for sender {}: {}", senderId, e.getMessage());
             return false;
         }
     }
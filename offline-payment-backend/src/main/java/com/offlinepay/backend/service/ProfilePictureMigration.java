@@ -0,0 +1,89 @@
+package com.offlinepay.backend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * One-off move of pictures stored inline in the legacy users.profile_pic
+ * column into the blob store. Runs at startup in chunks by user id; each row
+ * gets its hash and has the inline copy cleared. Pictures in a format uploads
+ * do not accept are moved too, as they are (see
+ * {@link ProfilePictureService#storeLegacy}), so no row is retried on every
+ * boot and no user loses a picture. A row that fails with an I/O error stays
+ * inline for the next start. A schema without the legacy column (fresh
+ * install) is skipped, and a database error later on stops the run without
+ * failing startup.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProfilePictureMigration {
+
+    private static final int CHUNK_SIZE = 50;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ProfilePictureService profilePictureService;
+
+    private record LegacyPicture(UUID userId, String encoded) {
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrate() {
+        List<LegacyPicture> chunk;
+        try {
+            chunk = nextChunk(new UUID(0L, 0L));
+        } catch (DataAccessException e) {
+            log.debug("No legacy profile_pic column to migrate: {}", e.getMessage());
+            return;
+        }
+
+        int moved = 0;
+        try {
+            while (!chunk.isEmpty()) {
+                for (LegacyPicture picture : chunk) {
+                    if (move(picture)) {
+                        moved++;
+                    }
+                }
+                chunk = nextChunk(chunk.get(chunk.size() - 1).userId());
+            }
+        } catch (DataAccessException e) {
+            log.warn("Profile picture migration stopped after {} pictures, resuming on next start: {}",
+                    moved, e.getMessage());
+            return;
+        }
+        if (moved > 0) {
+            log.info("Moved {} profile pictures into the blob store", moved);
+        }
+    }
+
+    private boolean move(LegacyPicture picture) {
+        String hash;
+        try {
+            hash = profilePictureService.storeLegacy(picture.encoded());
+        } catch (IOException e) {
+            // Left inline for the next start; the keyset moves past it
+            log.warn("Could not migrate profile picture of user {}: {}", picture.userId(), e.getMessage());
+            return false;
+        }
+        jdbcTemplate.update("update users set profile_pic_hash = ?, profile_pic = null where id = ?",
+                hash, picture.userId());
+        return true;
+    }
+
+    private List<LegacyPicture> nextChunk(UUID afterId) {
+        return jdbcTemplate.query("select id, profile_pic from users where profile_pic is not null and id > ? "
+                        + "order by id limit " + CHUNK_SIZE,
+                (rs, rowNum) -> new LegacyPicture(rs.getObject("id", UUID.class), rs.getString("profile_pic")),
+                afterId);
+    }
+}
@@ -0,0 +1,136 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.blob.BlobStore;
+import com.offlinepay.backend.blob.StoredBlob;
+import com.offlinepay.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Profile pictures live in the {@link BlobStore}; the users row only holds
+ * the SHA-256 of the current picture. Uploads are streamed straight to the
+ * store and must be PNG, JPEG, GIF or WebP, recognised by their first bytes.
+ */
+@Service
+public class ProfilePictureService {
+
+    private static final int HEADER_LENGTH = 12;
+
+    private final BlobStore blobStore;
+    private final UserRepository userRepository;
+    private final long maxBytes;
+
+    public ProfilePictureService(BlobStore blobStore, UserRepository userRepository,
+            @Value("${offlinepay.profile-pictures.max-bytes:2097152}") long maxBytes) {
+        this.blobStore = blobStore;
+        this.userRepository = userRepository;
+        this.maxBytes = maxBytes;
+    }
+
+    public record ProfilePicture(String hash, long size, String contentType) {
+    }
+
+    /**
+     * Stores an uploaded picture and makes it the user's current one. Not
+     * transactional: no connection is held while the body streams in.
+     */
+    public String upload(UUID userId, InputStream content) throws IOException {
+        String hash = store(content);
+        userRepository.updateProfilePicHash(userId, hash);
+        return hash;
+    }
+
+    /**
+     * Stores a picture sent the old way, as base64 or a data: URL, and returns
+     * its hash for the caller to put on the user.
+     */
+    public String storeEncoded(String encoded) throws IOException {
+        int comma = encoded.startsWith("data:") ? encoded.indexOf(',') : -1;
+        byte[] base64 = encoded.substring(comma + 1).getBytes(StandardCharsets.US_ASCII);
+        try (InputStream decoded = Base64.getMimeDecoder().wrap(new ByteArrayInputStream(base64))) {
+            return store(decoded);
+        }
+    }
+
+    /**
+     * Stores a picture from the legacy inline column as it is, with no format
+     * or size check, so nothing a user already had is dropped. Text that is
+     * not valid base64 is kept verbatim. Content that is not a recognised
+     * image gets a null content type and is only ever served as a download.
+     */
+    public String storeLegacy(String encoded) throws IOException {
+        int comma = encoded.startsWith("data:") ? encoded.indexOf(',') : -1;
+        byte[] content;
+        try {
+            // Strict decoding: the MIME decoder would skip stray characters
+            // and turn plain text into garbage instead of keeping it
+            content = Base64.getDecoder().decode(encoded.substring(comma + 1).replaceAll("\\s", ""));
+        } catch (IllegalArgumentException e) {
+            content = encoded.getBytes(StandardCharsets.UTF_8);
+        }
+        return blobStore.put(new ByteArrayInputStream(content), Long.MAX_VALUE).hash();
+    }
+
+    public Optional<ProfilePicture> find(UUID userId) throws IOException {
+        Optional<String> hash = userRepository.findProfilePicHashById(userId);
+        if (hash.isEmpty()) {
+            return Optional.empty();
+        }
+        Optional<StoredBlob> blob = blobStore.stat(hash.get());
+        if (blob.isEmpty()) {
+            return Optional.empty();
+        }
+        String contentType = contentType(blobStore.head(hash.get(), HEADER_LENGTH));
+        return Optional.of(new ProfilePicture(hash.get(), blob.get().size(), contentType));
+    }
+
+    private String store(InputStream content) throws IOException {
+        BufferedInputStream buffered = new BufferedInputStream(content);
+        buffered.mark(HEADER_LENGTH);
+        byte[] header = buffered.readNBytes(HEADER_LENGTH);
+        buffered.reset();
+        if (contentType(header) == null) {
+            throw new RuntimeException("Profile picture must be a PNG, JPEG, GIF or WebP image");
+        }
+        return blobStore.put(buffered, maxBytes).hash();
+    }
+
+    // Recognises the image formats browsers display from their magic bytes
+    static String contentType(byte[] header) {
+        if (startsWith(header, 0x89, 'P', 'N', 'G')) {
+            return "image/png";
+        }
+        if (startsWith(header, 0xFF, 0xD8, 0xFF)) {
+            return "image/jpeg";
+        }
+        if (startsWith(header, 'G', 'I', 'F', '8')) {
+            return "image/gif";
+        }
+        if (startsWith(header, 'R', 'I', 'F', 'F') && header.length >= 12
+                && header[8] == 'W' && header[9] == 'E' && header[10] == 'B' && header[11] == 'P') {
+            return "image/webp";
+        }
+        return null;
+    }
+
+    private static boolean startsWith(byte[] header, int... prefix) {
+        if (header.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if ((header[i] & 0xFF) != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,105 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.RequestTiming;
+import com.offlinepay.backend.metrics.RequestTiming.Span;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.security.PublicKeyCache;
+import com.offlinepay.backend.security.SignatureVerifier;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.stereotype.Service;
+
+import java.security.PublicKey;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * First stage of a batch sync: checks every signature before any ledger work.
+ *
+ * Sender keys are fetched with one bulk query (id and key columns only), then the CPU-bound ECDSA checks
+ * run on the verification pool with no database connection held. Only items
+ * that pass go on to the apply stage, so a flood of forged payments never
+ * reaches the wallet tables.
+ */
+@Slf4j
+@Service
+public class SignatureVerificationStage {
+
+    private final UserRepository userRepository;
+    private final PublicKeyCache publicKeyCache;
+    private final SignatureVerifier signatureVerifier;
+    private final ForkJoinPool verificationPool;
+
+    public SignatureVerificationStage(UserRepository userRepository,
+            PublicKeyCache publicKeyCache,
+            SignatureVerifier signatureVerifier,
+            @Qualifier("verificationPool") ForkJoinPool verificationPool) {
+        this.userRepository = userRepository;
+        this.publicKeyCache = publicKeyCache;
+        this.signatureVerifier = signatureVerifier;
+        this.verificationPool = verificationPool;
+    }
+
+    /**
+     * @return one entry per item: null when the signature is valid, otherwise
+     *         the reason the item was rejected
+     */
+    public RejectionReason[] verify(List<OfflineTransactionRequest> transactions) {
+        Map<UUID, PublicKey> keys = loadSenderKeys(transactions);
+        RejectionReason[] rejections = new RejectionReason[transactions.size()];
+
+        long start = System.nanoTime();
+        verificationPool.submit(() -> IntStream.range(0, transactions.size()).parallel().forEach(i -> {
+            OfflineTransactionRequest request = transactions.get(i);
+            if (!keys.containsKey(request.getSenderId())) {
+                rejections[i] = RejectionReason.SENDER_NOT_FOUND;
+                return;
+            }
+            PublicKey key = keys.get(request.getSenderId());
+            if (key == null || !verifyQuietly(request, key)) {
+                rejections[i] = RejectionReason.BAD_SIGNATURE;
+            }
+        })).join();
+        RequestTiming.record(Span.CRYPTO, start);
+
+        return rejections;
+    }
+
+    // Senders without a usable key map to null and are rejected as bad signatures
+    private Map<UUID, PublicKey> loadSenderKeys(List<OfflineTransactionRequest> transactions) {
+        Set<UUID> senderIds = new HashSet<>();
+        for (OfflineTransactionRequest request : transactions) {
+            senderIds.add(request.getSenderId());
+        }
+
+        Map<UUID, PublicKey> keys = new HashMap<>();
+        for (UserRepository.PublicKeyView sender : userRepository.findPublicKeysByIdIn(senderIds)) {
+            keys.put(sender.getId(), null);
+            if (sender.getPublicKey() == null || sender.getPublicKey().isBlank()) {
+                continue;
+            }
+            try {
+                keys.put(sender.getId(), publicKeyCache.get(sender.getId(), sender.getPublicKey()));
+            } catch (Exception e) {
+                log.warn("Unusable public key for user {}: {}", sender.getId(), e.getMessage());
+            }
+        }
+        return keys;
+    }
+
+    private boolean verifyQuietly(OfflineTransactionRequest request, PublicKey key) {
+        try {
+            return signatureVerifier.verify(request, key);
+        } catch (Exception e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,153 @@
+package com.offlinepay.backend.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonStreamContext;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.StreamReadConstraints;
+import com.fasterxml.jackson.core.io.JsonEOFException;
+import com.fasterxml.jackson.databind.DatabindException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncResult;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Sync for arbitrarily large JSON arrays without materializing them.
+ *
+ * The body is read token by token with a Jackson {@link JsonParser}. Each
+ * item is bound and validated on its own, and every
+ * offlinepay.sync.stream-chunk-size items go through {@link OfflineSyncEngine}
+ * (signature stage, then apply). Results are written as NDJSON, one line per
+ * submitted item in submission order, and flushed after every chunk.
+ *
+ * Parsing stops while a chunk is being applied, so at most one chunk is held
+ * and a slow database pushes back on the client through TCP flow control
+ * instead of the upload piling up in memory. Strings are capped at
+ * offlinepay.sync.stream-max-string-length characters so one item cannot grow
+ * without bound.
+ *
+ * An item that fails binding or validation is reported as REJECTED without
+ * failing the batch. A body that is not well-formed JSON ends the stream with
+ * an {"error": ...} line, after the results of every item before the bad input.
+ */
+@Service
+public class StreamingSyncService {
+
+    private final ObjectMapper objectMapper;
+    private final JsonFactory jsonFactory;
+    private final Validator validator;
+    private final OfflineSyncEngine offlineSyncEngine;
+    private final int chunkSize;
+
+    public StreamingSyncService(ObjectMapper objectMapper, Validator validator,
+            OfflineSyncEngine offlineSyncEngine,
+            @Value("${offlinepay.sync.stream-chunk-size:500}") int chunkSize,
+            @Value("${offlinepay.sync.stream-max-string-length:8192}") int maxStringLength) {
+        this.objectMapper = objectMapper;
+        this.jsonFactory = objectMapper.getFactory().rebuild()
+                .streamReadConstraints(StreamReadConstraints.builder().maxStringLength(maxStringLength).build())
+                .build();
+        this.validator = validator;
+        this.offlineSyncEngine = offlineSyncEngine;
+        this.chunkSize = chunkSize;
+    }
+
+    public void sync(InputStream in, OutputStream out) throws IOException {
+        List<Entry> chunk = new ArrayList<>(chunkSize);
+        String error = null;
+        try (JsonParser parser = jsonFactory.createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "Request body must be a JSON array");
+            }
+            JsonStreamContext array = parser.getParsingContext();
+
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonEOFException(parser, null, "Unexpected end of sync batch");
+                }
+                chunk.add(readItem(parser, token, array));
+                if (chunk.size() == chunkSize) {
+                    apply(chunk, out);
+                    chunk.clear();
+                }
+            }
+        } catch (JsonProcessingException e) {
+            // Items read before the bad input are still applied
+            error = "Malformed sync batch: " + e.getOriginalMessage();
+        }
+
+        apply(chunk, out);
+        if (error != null) {
+            out.write(objectMapper.writeValueAsBytes(Map.of("error", error)));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    // Binds one item; on a binding or validation failure skips the rest of it
+    private Entry readItem(JsonParser parser, JsonToken token, JsonStreamContext array) throws IOException {
+        if (token != JsonToken.START_OBJECT) {
+            parser.skipChildren();
+            return Entry.rejected(null, "Item must be a JSON object");
+        }
+        OfflineTransactionRequest request;
+        try {
+            request = objectMapper.readValue(parser, OfflineTransactionRequest.class);
+        } catch (DatabindException e) {
+            while (parser.getParsingContext() != array) {
+                if (parser.nextToken() == null) {
+                    throw e;
+                }
+            }
+            return Entry.rejected(null, "Invalid item: " + e.getOriginalMessage());
+        }
+
+        Set<ConstraintViolation<OfflineTransactionRequest>> violations = validator.validate(request);
+        if (!violations.isEmpty()) {
+            return Entry.rejected(request.getNonce(), violations.iterator().next().getMessage());
+        }
+        return new Entry(request, null);
+    }
+
+    private void apply(List<Entry> chunk, OutputStream out) throws IOException {
+        List<OfflineTransactionRequest> requests = new ArrayList<>(chunk.size());
+        for (Entry entry : chunk) {
+            if (entry.request != null) {
+                requests.add(entry.request);
+            }
+        }
+        List<SyncResult> applied = requests.isEmpty() ? Collections.emptyList()
+                : offlineSyncEngine.syncOfflineTransactions(requests);
+
+        int next = 0;
+        for (Entry entry : chunk) {
+            SyncResult result = entry.request != null ? applied.get(next++) : entry.rejection;
+            out.write(objectMapper.writeValueAsBytes(result));
+            out.write('\n');
+        }
+        out.flush();
+    }
+
+    private record Entry(OfflineTransactionRequest request, SyncResult rejection) {
+
+        static Entry rejected(String nonce, String reason) {
+            return new Entry(null, SyncResult.rejected(nonce, reason));
+        }
+    }
+}
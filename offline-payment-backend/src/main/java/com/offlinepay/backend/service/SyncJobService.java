@@ -0,0 +1,94 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncJobResponse;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.entity.SyncJob;
+import com.offlinepay.backend.entity.SyncJobItem;
+import com.offlinepay.backend.entity.SyncJobStatus;
+import com.offlinepay.backend.repository.SyncJobItemRepository;
+import com.offlinepay.backend.repository.SyncJobRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+
+// Accepts sync uploads as jobs and reports their progress; SyncJobWorker
+// does the processing.
+@Service
+@RequiredArgsConstructor
+public class SyncJobService {
+
+    private static final int DEFAULT_RESULT_PAGE_SIZE = 500;
+    private static final int MAX_RESULT_PAGE_SIZE = 1000;
+
+    private final SyncJobRepository syncJobRepository;
+    private final SyncJobItemRepository syncJobItemRepository;
+    private final SyncJobWorker syncJobWorker;
+
+    @Transactional
+    public SyncJobResponse submit(UUID submittedBy, List<OfflineTransactionRequest> transactions) {
+        SyncJob job = syncJobRepository.save(SyncJob.builder()
+                .submittedBy(submittedBy)
+                .status(SyncJobStatus.PENDING)
+                .total(transactions.size())
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        List<SyncJobItem> items = new ArrayList<>(transactions.size());
+        for (int i = 0; i < transactions.size(); i++) {
+            OfflineTransactionRequest request = transactions.get(i);
+            items.add(SyncJobItem.builder()
+                    .jobId(job.getId())
+                    .itemIndex(i)
+                    .senderId(request.getSenderId())
+                    .receiverId(request.getReceiverId())
+                    .amount(request.getAmount())
+                    .nonce(request.getNonce())
+                    .signature(request.getSignature())
+                    .build());
+        }
+        syncJobItemRepository.saveAll(items);
+
+        // Start right away instead of waiting for the next poll
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                syncJobWorker.wakeUp();
+            }
+        });
+
+        return toResponse(job, 0, List.of());
+    }
+
+    /**
+     * Progress of a job plus one page of outcomes: those of the processed
+     * items from index offset on, at most limit of them (default 500, max
+     * 1000). nextOffset is set while more processed outcomes follow the page.
+     * Empty for unknown jobs and for jobs submitted by someone else.
+     */
+    @Transactional(readOnly = true)
+    public Optional<SyncJobResponse> getJob(UUID jobId, UUID requestedBy, Integer offset, Integer limit) {
+        int from = offset == null ? 0 : Math.max(0, offset);
+        int pageSize = limit == null ? DEFAULT_RESULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_RESULT_PAGE_SIZE));
+        return syncJobRepository.findById(jobId)
+                .filter(job -> job.getSubmittedBy().equals(requestedBy))
+                .map(job -> toResponse(job, from,
+                        syncJobItemRepository.findResults(jobId, from, PageRequest.of(0, pageSize))));
+    }
+
+    private static SyncJobResponse toResponse(SyncJob job, int offset, List<SyncResult> results) {
+        int end = offset + results.size();
+        Integer nextOffset = end < job.getNextIndex() ? end : null;
+        return new SyncJobResponse(job.getId(), job.getStatus(), job.getTotal(), job.getNextIndex(),
+                job.getApplied(), job.getDuplicates(), job.getRejected(), offset, nextOffset, results);
+    }
+}
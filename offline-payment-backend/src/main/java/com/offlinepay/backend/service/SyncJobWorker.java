@@ -0,0 +1,226 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.entity.SyncJob;
+import com.offlinepay.backend.entity.SyncJobItem;
+import com.offlinepay.backend.entity.SyncJobStatus;
+import com.offlinepay.backend.repository.SyncJobItemRepository;
+import com.offlinepay.backend.repository.SyncJobRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Drains asynchronous sync jobs.
+ *
+ * A worker claims a job with a conditional UPDATE that takes a time-limited
+ * lease, then feeds its staged items through {@link OfflineSyncEngine} one
+ * chunk at a time. After each chunk it stores the per-item outcomes, moves
+ * nextIndex forward and renews the lease in one transaction. If the instance
+ * dies, the lease runs out and any instance resumes the job from nextIndex.
+ * Items from a chunk that was applied but not yet recorded come back as
+ * DUPLICATE, because their nonces are already stored.
+ *
+ * Polling starts once the application is ready, so it never queries before
+ * the schema exists, and can be switched off with
+ * offlinepay.sync-jobs.polling-enabled=false; submitted jobs still start
+ * right away through {@link #wakeUp()}.
+ */
+@Slf4j
+@Component
+public class SyncJobWorker {
+
+    private static final String RECORD_OUTCOME_SQL = "update sync_job_items set outcome = ?, reason = ? where id = ?";
+
+    // sync_job_items.reason is VARCHAR(255); a longer reason (an arbitrary
+    // exception message) would fail the record step and re-lease the job forever
+    static final int MAX_REASON_LENGTH = 255;
+
+    private final SyncJobRepository syncJobRepository;
+    private final SyncJobItemRepository syncJobItemRepository;
+    private final OfflineSyncEngine offlineSyncEngine;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transaction;
+    private final Executor syncJobExecutor;
+    private final Semaphore slots;
+    private final int chunkSize;
+    private final long leaseMs;
+    private final boolean pollingEnabled;
+
+    private volatile boolean ready;
+    private volatile boolean stopping;
+
+    public SyncJobWorker(SyncJobRepository syncJobRepository, SyncJobItemRepository syncJobItemRepository,
+            OfflineSyncEngine offlineSyncEngine, JdbcTemplate jdbcTemplate,
+            PlatformTransactionManager transactionManager,
+            @Qualifier("syncJobExecutor") Executor syncJobExecutor,
+            @Value("${offlinepay.sync-jobs.workers:2}") int workers,
+            @Value("${offlinepay.sync-jobs.chunk-size:200}") int chunkSize,
+            @Value("${offlinepay.sync-jobs.lease-ms:60000}") long leaseMs,
+            @Value("${offlinepay.sync-jobs.polling-enabled:true}") boolean pollingEnabled) {
+        this.syncJobRepository = syncJobRepository;
+        this.syncJobItemRepository = syncJobItemRepository;
+        this.offlineSyncEngine = offlineSyncEngine;
+        this.jdbcTemplate = jdbcTemplate;
+        // Own transactions, also when woken from another transaction's afterCommit
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.syncJobExecutor = syncJobExecutor;
+        this.slots = new Semaphore(workers);
+        this.chunkSize = chunkSize;
+        this.leaseMs = leaseMs;
+        this.pollingEnabled = pollingEnabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    void start() {
+        ready = true;
+    }
+
+    @PreDestroy
+    void stop() {
+        // Running jobs hand themselves back after their current chunk
+        stopping = true;
+    }
+
+    // Picks up jobs whose lease expired and jobs left PENDING by a restart
+    @Scheduled(fixedDelayString = "${offlinepay.sync-jobs.poll-interval-ms:1000}")
+    void poll() {
+        if (pollingEnabled && ready) {
+            wakeUp();
+        }
+    }
+
+    /** Claims as many waiting jobs as there are free workers. */
+    public void wakeUp() {
+        int free = slots.availablePermits();
+        if (free == 0 || stopping) {
+            return;
+        }
+        for (UUID jobId : syncJobRepository.findClaimableIds(LocalDateTime.now(), PageRequest.of(0, free))) {
+            if (!slots.tryAcquire()) {
+                return;
+            }
+            if (!claim(jobId)) {
+                // Another worker or instance got it first
+                slots.release();
+                continue;
+            }
+            try {
+                syncJobExecutor.execute(() -> {
+                    try {
+                        process(jobId);
+                    } finally {
+                        slots.release();
+                    }
+                });
+            } catch (RuntimeException e) {
+                // Not started; the lease expires and the job is picked up again
+                slots.release();
+                log.warn("Could not start sync job {}: {}", jobId, e.getMessage());
+            }
+        }
+    }
+
+    private boolean claim(UUID jobId) {
+        LocalDateTime now = LocalDateTime.now();
+        return Boolean.TRUE.equals(transaction.execute(status ->
+                syncJobRepository.claim(jobId, now, now.plusNanos(leaseMs * 1_000_000L)) == 1));
+    }
+
+    private void process(UUID jobId) {
+        try {
+            while (true) {
+                SyncJob job = syncJobRepository.findById(jobId).orElse(null);
+                if (job == null || job.getStatus() != SyncJobStatus.RUNNING) {
+                    return;
+                }
+                if (stopping) {
+                    transaction.executeWithoutResult(status -> syncJobRepository.release(jobId));
+                    return;
+                }
+
+                int fromIndex = job.getNextIndex();
+                List<SyncJobItem> chunk = syncJobItemRepository.findByJobIdAndItemIndexGreaterThanEqualOrderByItemIndex(
+                        jobId, fromIndex, PageRequest.of(0, chunkSize));
+                if (chunk.isEmpty()) {
+                    transaction.executeWithoutResult(status -> syncJobRepository.complete(jobId, LocalDateTime.now()));
+                    log.info("Sync job {} completed: {} items", jobId, job.getTotal());
+                    return;
+                }
+
+                List<SyncResult> results = offlineSyncEngine.syncOfflineTransactions(toRequests(chunk));
+                if (!record(jobId, fromIndex, chunk, results)) {
+                    log.warn("Sync job {} was taken over by another worker at item {}", jobId, fromIndex);
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            // Left RUNNING: once the lease expires the job resumes from nextIndex
+            log.warn("Sync job {} interrupted, will resume after its lease expires: {}", jobId, e.getMessage());
+        }
+    }
+
+    private boolean record(UUID jobId, int fromIndex, List<SyncJobItem> chunk, List<SyncResult> results) {
+        int applied = 0;
+        int duplicates = 0;
+        int rejected = 0;
+        List<Object[]> rows = new ArrayList<>(chunk.size());
+        for (int i = 0; i < chunk.size(); i++) {
+            SyncResult result = results.get(i);
+            switch (result.getOutcome()) {
+                case APPLIED -> applied++;
+                case DUPLICATE -> duplicates++;
+                case REJECTED -> rejected++;
+            }
+            rows.add(new Object[] { result.getOutcome().name(), truncate(result.getReason()), chunk.get(i).getId() });
+        }
+        int nextIndex = chunk.get(chunk.size() - 1).getItemIndex() + 1;
+        LocalDateTime leaseUntil = LocalDateTime.now().plusNanos(leaseMs * 1_000_000L);
+        int[] counts = { applied, duplicates, rejected };
+
+        return Boolean.TRUE.equals(transaction.execute(status -> {
+            if (syncJobRepository.advance(jobId, fromIndex, nextIndex, counts[0], counts[1], counts[2], leaseUntil) == 0) {
+                return false;
+            }
+            jdbcTemplate.batchUpdate(RECORD_OUTCOME_SQL, rows);
+            return true;
+        }));
+    }
+
+    static String truncate(String reason) {
+        return reason == null || reason.length() <= MAX_REASON_LENGTH ? reason : reason.substring(0, MAX_REASON_LENGTH);
+    }
+
+    private static List<OfflineTransactionRequest> toRequests(List<SyncJobItem> items) {
+        List<OfflineTransactionRequest> requests = new ArrayList<>(items.size());
+        for (SyncJobItem item : items) {
+            OfflineTransactionRequest request = new OfflineTransactionRequest();
+            request.setSenderId(item.getSenderId());
+            request.setReceiverId(item.getReceiverId());
+            request.setAmount(item.getAmount());
+            request.setNonce(item.getNonce());
+            request.setSignature(item.getSignature());
+            requests.add(request);
+        }
+        return requests;
+    }
+}
@@ -0,0 +1,160 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.Transaction;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per-transaction batcher for the transactions log table.
+ *
+ * Rows appended inside a transaction are buffered for that transaction and
+ * written as JDBC batches of up to batchSize rows just before it commits, on
+ * its connection. A log row therefore commits or rolls back with the balance
+ * change it records, is visible to history reads as soon as the balance is,
+ * and a failed insert fails the transaction instead of being dropped.
+ *
+ * Rows are never grouped across transactions: a sync chunk that logs hundreds
+ * of payments pays one round trip per batch rather than one per row, but an
+ * online transfer still writes its single row in its own insert. Outside a
+ * transaction rows are written at once.
+ *
+ * offline_transactions is not batched here: its unique nonce is the replay
+ * guard and must be checked by the insert itself, not at commit.
+ */
+@Component
+public class TransactionLogBatcher {
+
+    private static final String INSERT_SQL = "insert into transactions "
+            + "(id, sender_id, receiver_id, amount, status, transaction_type, created_at) "
+            + "values (?, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+
+    public TransactionLogBatcher(JdbcTemplate jdbcTemplate,
+            @Value("${offlinepay.transaction-log.batch-size:200}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = batchSize;
+    }
+
+    /**
+     * Adds a log row to the current transaction's batch. Assigns the id and
+     * createdAt that JPA would have generated and returns the row.
+     */
+    public Transaction append(Transaction row) {
+        assignDefaults(row, now());
+        List<Transaction> pending = pendingRows();
+        if (pending == null) {
+            write(List.of(row));
+        } else {
+            pending.add(row);
+        }
+        return row;
+    }
+
+    /** Batch form of {@link #append}. */
+    public void appendAll(List<Transaction> rows) {
+        LocalDateTime now = now();
+        for (Transaction row : rows) {
+            assignDefaults(row, now);
+        }
+        List<Transaction> pending = pendingRows();
+        if (pending == null) {
+            write(rows);
+        } else {
+            pending.addAll(rows);
+        }
+    }
+
+    public long writtenCount() {
+        return written.sum();
+    }
+
+    public long batchCount() {
+        return batches.sum();
+    }
+
+    // At the column's microsecond precision, so the createdAt a caller gets
+    // back is the stored one and works as a history cursor
+    private static LocalDateTime now() {
+        return LocalDateTime.now().truncatedTo(ChronoUnit.MICROS);
+    }
+
+    private static void assignDefaults(Transaction row, LocalDateTime now) {
+        if (row.getId() == null) {
+            row.setId(UUID.randomUUID());
+        }
+        if (row.getCreatedAt() == null) {
+            row.setCreatedAt(now);
+        }
+    }
+
+    // Rows waiting for the current transaction's commit, or null when there
+    // is no transaction to wait for. The list is bound to the transaction, so
+    // a suspended outer transaction keeps its own rows.
+    @SuppressWarnings("unchecked")
+    private List<Transaction> pendingRows() {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return null;
+        }
+        List<Transaction> pending = (List<Transaction>) TransactionSynchronizationManager.getResource(this);
+        if (pending == null) {
+            List<Transaction> rows = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, rows);
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void suspend() {
+                    TransactionSynchronizationManager.unbindResource(TransactionLogBatcher.this);
+                }
+
+                @Override
+                public void resume() {
+                    TransactionSynchronizationManager.bindResource(TransactionLogBatcher.this, rows);
+                }
+
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    if (!rows.isEmpty()) {
+                        write(rows);
+                    }
+                }
+
+                @Override
+                public void afterCompletion(int status) {
+                    TransactionSynchronizationManager.unbindResourceIfPossible(TransactionLogBatcher.this);
+                }
+            });
+            pending = rows;
+        }
+        return pending;
+    }
+
+    private void write(List<Transaction> rows) {
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows, batchSize, (ps, row) -> {
+            ps.setObject(1, row.getId());
+            ps.setObject(2, row.getSender().getId());
+            ps.setObject(3, row.getReceiver().getId());
+            ps.setBigDecimal(4, row.getAmount());
+            ps.setString(5, row.getStatus().name());
+            ps.setString(6, row.getTransactionType());
+            ps.setTimestamp(7, Timestamp.valueOf(row.getCreatedAt()));
+        });
+        written.add(rows.size());
+        batches.add((rows.size() + batchSize - 1) / batchSize);
+    }
+}
@@ -1,19 +1,32 @@
 package com.offlinepay.backend.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.offlinepay.backend.dto.TransactionHistoryItem;
+import com.offlinepay.backend.dto.TransactionHistoryPage;
 import com.offlinepay.backend.dto.TransactionRequest;
+import com.offlinepay.backend.dto.UserSummary;
 import com.offlinepay.backend.entity.Transaction;
 import com.offlinepay.backend.entity.TransactionStatus;
 import com.offlinepay.backend.entity.User;
-import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.PaymentMetrics;
 import com.offlinepay.backend.repository.TransactionRepository;
 import com.offlinepay.backend.repository.UserRepository;
-import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.AuthenticatedUser;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.Iterator;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
@@ -21,52 +34,123 @@ public class TransactionService {
 
     private final TransactionRepository transactionRepository;
     private final UserRepository userRepository;
-    private final WalletRepository walletRepository;
+    private final UserSummaryCache userSummaryCache;
+    private final WalletMutationService walletMutationService;
+    private final ObjectMapper objectMapper;
+    private final TransactionLogBatcher transactionLogBatcher;
+    private final PaymentMetrics paymentMetrics;
 
-    @Transactional
-    public Transaction processOnlineTransaction(String senderEmail, TransactionRequest request) {
-        User sender = userRepository.findByEmail(senderEmail)
-                .orElseThrow(() -> new RuntimeException("Sender not found"));
-
-        User receiver = userRepository.findById(request.getReceiverId())
-                .orElseThrow(() -> new RuntimeException("Receiver not found"));
+    public static final int DEFAULT_PAGE_SIZE = 50;
+    public static final int MAX_PAGE_SIZE = 200;
 
-        if (sender.getId().equals(receiver.getId())) {
-            throw new RuntimeException("Cannot send money to yourself");
+    @Transactional
+    public Transaction processOnlineTransaction(AuthenticatedUser principal, TransactionRequest request) {
+        try {
+            return transfer(principal, request);
+        } catch (PaymentRejectedException e) {
+            paymentMetrics.rejected(PaymentMetrics.Channel.ONLINE, e.getReason());
+            throw e;
         }
+    }
 
-        Wallet senderWallet = walletRepository.findByUser(sender)
-                .orElseThrow(() -> new RuntimeException("Sender wallet not found"));
-
-        if (senderWallet.getBalance().compareTo(request.getAmount()) < 0) {
-            throw new RuntimeException("Insufficient balance");
-        }
+    private Transaction transfer(AuthenticatedUser principal, TransactionRequest request) {
+        // Reference only: the sender's id comes from the token, no lookup needed
+        User sender = userRepository.getReferenceById(principal.userId());
 
-        Wallet receiverWallet = walletRepository.findByUser(receiver)
-                .orElseThrow(() -> new RuntimeException("Receiver wallet not found"));
+        // Existence check from the summary cache; the receiver row is not read in full
+        UserSummary receiver = userSummaryCache.get(request.getReceiverId())
+                .orElseThrow(() -> new PaymentRejectedException(RejectionReason.RECEIVER_NOT_FOUND, "Receiver not found"));
 
-        // Deduct from sender
-        senderWallet.setBalance(senderWallet.getBalance().subtract(request.getAmount()));
-        walletRepository.save(senderWallet);
+        if (sender.getId().equals(receiver.id())) {
+            throw new PaymentRejectedException(RejectionReason.SELF_TRANSFER, "Cannot send money to yourself");
+        }
 
-        // Add to receiver
-        receiverWallet.setBalance(receiverWallet.getBalance().add(request.getAmount()));
-        walletRepository.save(receiverWallet);
+        // Conditional debit + credit, two UPDATEs with no overdraft race
+        walletMutationService.transfer(sender.getId(), receiver.id(), request.getAmount(), "Insufficient balance");
 
         Transaction transaction = Transaction.builder()
                 .sender(sender)
-                .receiver(receiver)
+                .receiver(userRepository.getReferenceById(receiver.id()))
                 .amount(request.getAmount())
                 .status(TransactionStatus.COMPLETED)
                 .transactionType("ONLINE")
                 .build();
 
-        return transactionRepository.save(transaction);
+        // Log row joins this transaction's batch, written just before it commits
+        return transactionLogBatcher.append(transaction);
+    }
+
+    /**
+     * The transaction in the history item shape, with both parties taken
+     * from the user summary cache. Serializing the entity instead would load
+     * both user rows, TEXT columns included.
+     */
+    public TransactionHistoryItem describe(Transaction transaction) {
+        UserSummary sender = summaryOf(transaction.getSender().getId());
+        UserSummary receiver = summaryOf(transaction.getReceiver().getId());
+        return new TransactionHistoryItem(transaction.getId(),
+                sender.id(), sender.name(), sender.email(),
+                receiver.id(), receiver.name(), receiver.email(),
+                transaction.getAmount(), transaction.getStatus(), transaction.getTransactionType(),
+                transaction.getCreatedAt());
     }
 
-    public List<Transaction> getUserTransactions(String email) {
-        User user = userRepository.findByEmail(email)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return transactionRepository.findBySenderIdOrReceiverIdOrderByCreatedAtDesc(user.getId(), user.getId());
+    private UserSummary summaryOf(UUID userId) {
+        return userSummaryCache.get(userId).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+
+    @Transactional(readOnly = true)
+    public TransactionHistoryPage getUserTransactions(UUID userId, String cursor, Integer limit) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.max(1, Math.min(limit, MAX_PAGE_SIZE));
+        // Fetch one extra row to know whether another page exists
+        int fetch = pageSize + 1;
+
+        List<TransactionHistoryItem> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = transactionRepository.findHistoryFirstPage(userId, fetch);
+        } else {
+            String[] position = decodeCursor(cursor);
+            rows = transactionRepository.findHistoryPageAfter(userId,
+                    LocalDateTime.parse(position[0]), UUID.fromString(position[1]), fetch);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new TransactionHistoryPage(rows, null);
+        }
+        List<TransactionHistoryItem> page = rows.subList(0, pageSize);
+        TransactionHistoryItem last = page.get(pageSize - 1);
+        return new TransactionHistoryPage(page, encodeCursor(last.getCreatedAt(), last.getId()));
+    }
+
+    // Writes the full history as newline-delimited JSON straight from a DB
+    // cursor, so memory stays constant whatever the number of rows.
+    @Transactional(readOnly = true)
+    public void streamUserTransactions(UUID userId, OutputStream out) throws IOException {
+        try (Stream<TransactionHistoryItem> rows = transactionRepository.streamHistory(userId)) {
+            Iterator<TransactionHistoryItem> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                out.write(objectMapper.writeValueAsBytes(iterator.next()));
+                out.write('\n');
+            }
+        }
+        out.flush();
+    }
+
+    private static String encodeCursor(LocalDateTime createdAt, UUID id) {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String[] decodeCursor(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|", 2);
+            if (parts.length != 2) {
+                throw new IllegalArgumentException();
+            }
+            return parts;
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
     }
 }
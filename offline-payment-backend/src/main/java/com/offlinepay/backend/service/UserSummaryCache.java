@@ -0,0 +1,50 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.cache.LruCache;
+import com.offlinepay.backend.dto.UserSummary;
+import com.offlinepay.backend.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+import java.util.UUID;
+
+/**
+ * Id, name and email of users, keyed by id, for the payment paths that only
+ * need to know a user exists and how to label them. Users are never deleted,
+ * so a cached entry can only go stale through a profile rename; that path
+ * invalidates it, and the TTL covers renames on other instances.
+ */
+@Component
+public class UserSummaryCache {
+
+    private final UserRepository userRepository;
+    private final LruCache<UUID, UserSummary> cache;
+
+    public UserSummaryCache(UserRepository userRepository,
+            @Value("${offlinepay.user-cache.max-size:50000}") int maxSize,
+            @Value("${offlinepay.user-cache.ttl-ms:300000}") long ttlMs) {
+        this.userRepository = userRepository;
+        this.cache = new LruCache<>(maxSize, ttlMs);
+    }
+
+    public Optional<UserSummary> get(UUID userId) {
+        return Optional.ofNullable(cache.get(userId, id -> userRepository.findSummaryById(id).orElse(null)));
+    }
+
+    public void invalidate(UUID userId) {
+        cache.invalidate(userId);
+    }
+
+    public long hitCount() {
+        return cache.hitCount();
+    }
+
+    public long missCount() {
+        return cache.missCount();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+}
@@ -0,0 +1,224 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.cache.LruCache;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.metrics.PaymentMetrics;
+import com.offlinepay.backend.metrics.PaymentMetrics.Stage;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository.StripeBalance;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToIntFunction;
+
+/**
+ * All wallet balance changes go through here as single conditional UPDATE
+ * statements, so there is no read-modify-write and no overdraft race.
+ *
+ * Each UPDATE row-locks its wallet until the caller's transaction ends. A
+ * transfer updates the two wallets in ascending user id order (wallets are
+ * one per user, so this is a fixed total order over wallet rows), which keeps
+ * opposing A->B / B->A transfers from deadlocking. Statement time, which is
+ * dominated by lock wait under contention, is recorded per wallet.
+ *
+ * Striped hot wallets ({@link WalletStriping}) take credits on a random
+ * stripe row; a debit the wallet row cannot cover alone falls back to
+ * draining the stripes under lock.
+ *
+ * Every change is also posted to the {@link LedgerService} in the same
+ * transaction, after the UPDATEs have taken the row locks, and evicts the
+ * touched wallets from the {@link BalanceCache} once it commits.
+ */
+@Service
+@RequiredArgsConstructor
+public class WalletMutationService {
+
+    private final WalletRepository walletRepository;
+    private final LedgerService ledgerService;
+    private final WalletStripeRepository walletStripeRepository;
+    private final WalletStriping walletStriping;
+    private final PaymentMetrics paymentMetrics;
+    private final BalanceCache balanceCache;
+
+    @Value("${offlinepay.wallet-lock.contention-threshold-ms:5}")
+    private long contentionThresholdMs;
+
+    private final LruCache<UUID, LockStats> stats = new LruCache<>(10_000);
+
+    /**
+     * Moves money between two wallets: two UPDATEs, no SELECTs, then one
+     * batched insert of the two ledger entries.
+     *
+     * @throws PaymentRejectedException if the sender cannot cover the amount or
+     *                                  either wallet is missing; the caller's
+     *                                  transaction must then roll back
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void transfer(UUID senderId, UUID receiverId, BigDecimal amount, String insufficientMessage) {
+        if (senderId.compareTo(receiverId) < 0) {
+            applyDebit(senderId, amount, insufficientMessage, RejectionReason.SENDER_WALLET_NOT_FOUND,
+                    "Sender wallet not found");
+            applyCredit(receiverId, amount, RejectionReason.RECEIVER_WALLET_NOT_FOUND, "Receiver wallet not found");
+        } else {
+            applyCredit(receiverId, amount, RejectionReason.RECEIVER_WALLET_NOT_FOUND, "Receiver wallet not found");
+            applyDebit(senderId, amount, insufficientMessage, RejectionReason.SENDER_WALLET_NOT_FOUND,
+                    "Sender wallet not found");
+        }
+        ledgerService.post("TRANSFER", senderId, receiverId, amount);
+        balanceCache.evictAfterCommit(senderId);
+        balanceCache.evictAfterCommit(receiverId);
+    }
+
+    // Withdrawal: money leaves the system
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void debit(UUID userId, BigDecimal amount, String insufficientMessage, String missingMessage) {
+        applyDebit(userId, amount, insufficientMessage, RejectionReason.WALLET_NOT_FOUND, missingMessage);
+        ledgerService.post("WITHDRAWAL", userId, LedgerService.EXTERNAL_ACCOUNT, amount);
+        balanceCache.evictAfterCommit(userId);
+    }
+
+    // Deposit: money enters the system
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void credit(UUID userId, BigDecimal amount, String missingMessage) {
+        applyCredit(userId, amount, RejectionReason.WALLET_NOT_FOUND, missingMessage);
+        ledgerService.post("DEPOSIT", LedgerService.EXTERNAL_ACCOUNT, userId, amount);
+        balanceCache.evictAfterCommit(userId);
+    }
+
+    private void applyDebit(UUID userId, BigDecimal amount, String insufficientMessage,
+            RejectionReason missingReason, String missingMessage) {
+        long start = System.nanoTime();
+        try {
+            if (update(userId, id -> walletRepository.debit(id, amount)) == 0) {
+                // The wallet row alone cannot cover it; a striped wallet may hold the rest in stripes
+                drainStripes(userId, amount, insufficientMessage, missingReason, missingMessage);
+            }
+        } finally {
+            paymentMetrics.record(Stage.WALLET_DEBIT, start);
+        }
+    }
+
+    private void applyCredit(UUID userId, BigDecimal amount, RejectionReason missingReason, String missingMessage) {
+        long start = System.nanoTime();
+        int stripe = walletStriping.pickStripe(userId);
+        int rows = update(userId, id -> stripe == 0 ? walletRepository.credit(id, amount)
+                : creditStripe(id, stripe, amount));
+        paymentMetrics.record(Stage.WALLET_CREDIT, start);
+        if (rows == 0) {
+            throw new PaymentRejectedException(missingReason, missingMessage);
+        }
+    }
+
+    private int creditStripe(UUID userId, int stripe, BigDecimal amount) {
+        // A stripe removed since the last refresh: fall back to the wallet row
+        int rows = walletStripeRepository.credit(userId, stripe, amount);
+        return rows == 1 ? rows : walletRepository.credit(userId, amount);
+    }
+
+    // Slow path: lock the wallet row, then every stripe in order, and take
+    // the amount from the wallet row first and the stripes after it, each as
+    // a conditional UPDATE like the fast path.
+    private void drainStripes(UUID userId, BigDecimal amount, String insufficientMessage,
+            RejectionReason missingReason, String missingMessage) {
+        BigDecimal home = walletRepository.lockBalanceByUserId(userId)
+                .orElseThrow(() -> new PaymentRejectedException(missingReason, missingMessage));
+        List<StripeBalance> stripes = walletStripeRepository.lockBalancesByUserId(userId);
+
+        BigDecimal total = home;
+        for (StripeBalance stripe : stripes) {
+            total = total.add(stripe.getBalance());
+        }
+        if (total.compareTo(amount) < 0) {
+            throw new PaymentRejectedException(RejectionReason.INSUFFICIENT_BALANCE, insufficientMessage);
+        }
+
+        BigDecimal remaining = amount.subtract(home.min(amount));
+        if (home.signum() > 0 && walletRepository.debit(userId, home.min(amount)) == 0) {
+            throw new IllegalStateException("Wallet row of user " + userId + " changed under lock");
+        }
+        for (StripeBalance stripe : stripes) {
+            if (remaining.signum() == 0) {
+                break;
+            }
+            BigDecimal taken = stripe.getBalance().min(remaining);
+            if (taken.signum() > 0 && walletStripeRepository.debit(userId, stripe.getStripeIndex(), taken) == 0) {
+                throw new IllegalStateException("Stripe " + stripe.getStripeIndex() + " of user " + userId
+                        + " changed under lock");
+            }
+            remaining = remaining.subtract(taken);
+        }
+    }
+
+    private int update(UUID userId, ToIntFunction<UUID> statement) {
+        LockStats walletStats = stats.get(userId, id -> new LockStats());
+        long start = System.nanoTime();
+        try {
+            int rows = statement.applyAsInt(userId);
+            if (walletStats.recordAcquired(System.nanoTime() - start, contentionThresholdMs * 1_000_000L)) {
+                paymentMetrics.walletLockContended();
+            }
+            return rows;
+        } catch (PessimisticLockingFailureException e) {
+            walletStats.timeouts.increment();
+            paymentMetrics.walletLockTimeout();
+            throw e;
+        }
+    }
+
+    public Optional<LockStats> statsFor(UUID userId) {
+        return Optional.ofNullable(stats.get(userId));
+    }
+
+    public static class LockStats {
+        private final LongAdder acquisitions = new LongAdder();
+        private final LongAdder contended = new LongAdder();
+        private final LongAdder timeouts = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Long::max, 0);
+
+        // Returns true if the wait counted as contended
+        boolean recordAcquired(long waitNanos, long contentionThresholdNanos) {
+            acquisitions.increment();
+            totalWaitNanos.add(waitNanos);
+            maxWaitNanos.accumulate(waitNanos);
+            if (waitNanos > contentionThresholdNanos) {
+                contended.increment();
+                return true;
+            }
+            return false;
+        }
+
+        public long getAcquisitions() {
+            return acquisitions.sum();
+        }
+
+        public long getContended() {
+            return contended.sum();
+        }
+
+        public long getTimeouts() {
+            return timeouts.sum();
+        }
+
+        public double getAverageWaitMillis() {
+            long count = acquisitions.sum();
+            return count == 0 ? 0.0 : totalWaitNanos.sum() / 1_000_000.0 / count;
+        }
+
+        public double getMaxWaitMillis() {
+            return maxWaitNanos.get() / 1_000_000.0;
+        }
+    }
+}
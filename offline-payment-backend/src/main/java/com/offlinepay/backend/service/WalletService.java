@@ -2,13 +2,12 @@ package com.offlinepay.backend.service;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 
-import com.offlinepay.backend.repository.WalletRepository;
 import com.offlinepay.backend.repository.UserRepository;
-import com.offlinepay.backend.repository.TransactionRepository;
 import com.offlinepay.backend.entity.User;
-import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.security.AuthenticatedUser;
 import com.offlinepay.backend.entity.Transaction;
 import com.offlinepay.backend.entity.TransactionStatus;
 
@@ -16,29 +15,23 @@ import com.offlinepay.backend.entity.TransactionStatus;
 @RequiredArgsConstructor
 public class WalletService {
 
-        private final WalletRepository walletRepository;
+        private final BalanceCache balanceCache;
         private final UserRepository userRepository;
-        private final TransactionRepository transactionRepository;
+        private final TransactionLogBatcher transactionLogBatcher;
+        private final WalletMutationService walletMutationService;
 
-        public BigDecimal getBalance(String email) {
-                User user = userRepository.findByEmail(email)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                Wallet wallet = walletRepository.findByUser(user)
+        // Served from the balance cache; a miss is one indexed read
+        public BigDecimal getBalance(AuthenticatedUser principal) {
+                return balanceCache.get(principal.userId())
                                 .orElseThrow(() -> new RuntimeException("Wallet not found"));
-
-                return wallet.getBalance();
         }
 
-        public String addMoney(String email, BigDecimal amount) {
-                User user = userRepository.findByEmail(email)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                Wallet wallet = walletRepository.findByUser(user)
-                                .orElseThrow(() -> new RuntimeException("Wallet not found"));
+        @Transactional
+        public String addMoney(AuthenticatedUser principal, BigDecimal amount) {
+                walletMutationService.credit(principal.userId(), amount, "Wallet not found");
 
-                wallet.setBalance(wallet.getBalance().add(amount));
-                walletRepository.save(wallet);
+                // Reference only: the log row needs the foreign key, not the user
+                User user = userRepository.getReferenceById(principal.userId());
 
                 Transaction transaction = Transaction.builder()
                                 .sender(user)
@@ -47,24 +40,16 @@ public class WalletService {
                                 .status(TransactionStatus.COMPLETED)
                                 .transactionType("DEPOSIT")
                                 .build();
-                transactionRepository.save(transaction);
+                transactionLogBatcher.append(transaction);
 
                 return "Money added successfully";
         }
 
-        public String withdrawMoney(String email, BigDecimal amount) {
-                User user = userRepository.findByEmail(email)
-                                .orElseThrow(() -> new RuntimeException("User not found"));
-
-                Wallet wallet = walletRepository.findByUser(user)
-                                .orElseThrow(() -> new RuntimeException("Wallet not found"));
-
-                if (wallet.getBalance().compareTo(amount) < 0) {
-                        throw new RuntimeException("Insufficient balance");
-                }
+        @Transactional
+        public String withdrawMoney(AuthenticatedUser principal, BigDecimal amount) {
+                walletMutationService.debit(principal.userId(), amount, "Insufficient balance", "Wallet not found");
 
-                wallet.setBalance(wallet.getBalance().subtract(amount));
-                walletRepository.save(wallet);
+                User user = userRepository.getReferenceById(principal.userId());
 
                 Transaction transaction = Transaction.builder()
                                 .sender(user) // Self transfer for withdraw
@@ -73,7 +58,7 @@ public class WalletService {
                                 .status(TransactionStatus.COMPLETED)
                                 .transactionType("WITHDRAWAL")
                                 .build();
-                transactionRepository.save(transaction);
+                transactionLogBatcher.append(transaction);
 
                 return "Money withdrawn successfully";
         }
@@ -0,0 +1,174 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.WalletStripe;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository;
+import com.offlinepay.backend.repository.WalletStripeRepository.StripeBalance;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in striping for hot merchant wallets.
+ *
+ * A striped wallet keeps its balance across N rows: the wallet row itself
+ * (stripe 0) and wallet_stripes 1..N-1. Credits pick a random stripe, so N
+ * concurrent receivers lock N different rows instead of queueing on one.
+ * Debits drain the wallet row first and then the stripes in order (see
+ * {@link WalletMutationService}), and the balance read sums all of them.
+ *
+ * The striped-wallet map is refreshed from the database, so every instance
+ * converges on the same settings. A stale entry is harmless: a wallet missing
+ * from the map is credited on its wallet row, and a credit to a stripe that
+ * was removed falls back to the wallet row. A background consolidator
+ * periodically folds stripe balances into the wallet row so most debits take
+ * the single-UPDATE fast path.
+ */
+@Slf4j
+@Component
+public class WalletStriping {
+
+    private final WalletRepository walletRepository;
+    private final WalletStripeRepository walletStripeRepository;
+    private final TransactionTemplate transaction;
+    private final List<String> configuredUserIds;
+    private final int configuredStripes;
+
+    private final Map<UUID, Integer> stripeCounts = new ConcurrentHashMap<>();
+
+    public WalletStriping(WalletRepository walletRepository, WalletStripeRepository walletStripeRepository,
+            PlatformTransactionManager transactionManager,
+            @Value("${offlinepay.wallet-striping.user-ids:}") List<String> configuredUserIds,
+            @Value("${offlinepay.wallet-striping.stripes:8}") int configuredStripes) {
+        this.walletRepository = walletRepository;
+        this.walletStripeRepository = walletStripeRepository;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.configuredUserIds = configuredUserIds;
+        this.configuredStripes = configuredStripes;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void applyConfiguration() {
+        for (String userId : configuredUserIds) {
+            if (userId.isBlank()) {
+                continue;
+            }
+            try {
+                setStripes(UUID.fromString(userId.trim()), configuredStripes);
+            } catch (Exception e) {
+                log.warn("Could not stripe wallet of user {}: {}", userId, e.getMessage());
+            }
+        }
+        refresh();
+    }
+
+    /** Stripe a credit should go to; 0 (the wallet row) for plain wallets. */
+    public int pickStripe(UUID userId) {
+        Integer stripes = stripeCounts.get(userId);
+        return stripes == null ? 0 : ThreadLocalRandom.current().nextInt(stripes);
+    }
+
+    public boolean isStriped(UUID userId) {
+        return stripeCounts.containsKey(userId);
+    }
+
+    /**
+     * Changes a wallet's stripe count. Stripes that go away have their
+     * balance moved to the wallet row first; 1 turns striping off.
+     */
+    public void setStripes(UUID userId, int stripes) {
+        transaction.executeWithoutResult(status -> {
+            walletRepository.lockBalanceByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("Wallet not found"));
+            List<StripeBalance> existing = walletStripeRepository.lockBalancesByUserId(userId);
+
+            boolean[] present = new boolean[Math.max(stripes, 1)];
+            for (StripeBalance stripe : existing) {
+                if (stripe.getStripeIndex() < stripes) {
+                    present[stripe.getStripeIndex()] = true;
+                }
+            }
+            BigDecimal released = drained(existing, stripes);
+            walletStripeRepository.deleteFrom(userId, stripes);
+            if (released.signum() > 0) {
+                walletRepository.credit(userId, released);
+            }
+
+            for (int index = 1; index < stripes; index++) {
+                if (!present[index]) {
+                    walletStripeRepository.save(WalletStripe.builder()
+                            .userId(userId)
+                            .stripeIndex(index)
+                            .balance(BigDecimal.ZERO)
+                            .build());
+                }
+            }
+            walletRepository.updateStripeCount(userId, Math.max(stripes, 1));
+        });
+
+        if (stripes > 1) {
+            stripeCounts.put(userId, stripes);
+        } else {
+            stripeCounts.remove(userId);
+        }
+        log.info("Wallet of user {} now uses {} stripes", userId, Math.max(stripes, 1));
+    }
+
+    @Scheduled(fixedDelayString = "${offlinepay.wallet-striping.refresh-interval-ms:30000}")
+    public void refresh() {
+        Map<UUID, Integer> latest = new ConcurrentHashMap<>();
+        for (WalletRepository.StripedWallet wallet : walletRepository.findStripedWallets()) {
+            latest.put(wallet.getUserId(), wallet.getStripeCount());
+        }
+        stripeCounts.keySet().retainAll(latest.keySet());
+        stripeCounts.putAll(latest);
+    }
+
+    /** Moves every stripe's balance into its wallet row; returns the number of wallets touched. */
+    @Scheduled(initialDelayString = "${offlinepay.wallet-striping.consolidate-interval-ms:60000}",
+            fixedDelayString = "${offlinepay.wallet-striping.consolidate-interval-ms:60000}")
+    public int consolidate() {
+        int consolidated = 0;
+        for (UUID userId : stripeCounts.keySet()) {
+            Boolean moved = transaction.execute(status -> {
+                if (walletRepository.lockBalanceByUserId(userId).isEmpty()) {
+                    return false;
+                }
+                BigDecimal total = drained(walletStripeRepository.lockBalancesByUserId(userId), 1);
+                if (total.signum() == 0) {
+                    return false;
+                }
+                walletStripeRepository.empty(userId, 1);
+                walletRepository.credit(userId, total);
+                return true;
+            });
+            if (Boolean.TRUE.equals(moved)) {
+                consolidated++;
+            }
+        }
+        return consolidated;
+    }
+
+    // What emptying or deleting the locked stripes from fromIndex up moves out
+    private static BigDecimal drained(List<StripeBalance> stripes, int fromIndex) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (StripeBalance stripe : stripes) {
+            if (stripe.getStripeIndex() >= fromIndex) {
+                total = total.add(stripe.getBalance());
+            }
+        }
+        return total;
+    }
+}
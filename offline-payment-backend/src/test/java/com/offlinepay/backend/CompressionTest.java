@@ -0,0 +1,118 @@
+package com.offlinepay.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "offlinepay.compression.min-response-bytes=64")
+@ActiveProfiles("test")
+class CompressionTest {
+
+    @LocalServerPort
+    int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void smallResponsesAreSentAsIs() throws Exception {
+        String token = register("gzip-small@test.local");
+
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri("/api/transaction/history"))
+                .header("Authorization", "Bearer " + token)
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertFalse(response.headers().firstValue("Content-Encoding").isPresent());
+        assertEquals("[]", new String(response.body(), StandardCharsets.UTF_8));
+        assertTrue(response.headers().allValues("Vary").contains("Accept-Encoding"));
+    }
+
+    @Test
+    void gzipUploadGetsGzipResults() throws Exception {
+        String token = register("gzip-sync@test.local");
+        List<Map<String, Object>> batch = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            batch.add(Map.of(
+                    "senderId", UUID.randomUUID().toString(),
+                    "receiverId", UUID.randomUUID().toString(),
+                    "amount", 10,
+                    "nonce", UUID.randomUUID().toString(),
+                    "signature", "c2lnbmF0dXJl"));
+        }
+
+        HttpResponse<byte[]> response = client.send(HttpRequest.newBuilder(uri("/api/offline-transaction/sync"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .header("Content-Encoding", "gzip")
+                .header("Accept-Encoding", "gzip")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(gzip(mapper.writeValueAsBytes(batch))))
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+
+        assertEquals(200, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Content-Encoding").orElse(""));
+        JsonNode results = mapper.readTree(new GZIPInputStream(new ByteArrayInputStream(response.body())));
+        assertEquals(20, results.size());
+        assertEquals(batch.get(0).get("nonce"), results.get(0).get("nonce").asText());
+    }
+
+    @Test
+    void unsupportedCodingIsRefused() throws Exception {
+        String token = register("gzip-zstd@test.local");
+
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/offline-transaction/sync"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/json")
+                .header("Content-Encoding", "zstd")
+                .POST(HttpRequest.BodyPublishers.ofString("[]"))
+                .build(), HttpResponse.BodyHandlers.ofString());
+
+        assertEquals(415, response.statusCode());
+        assertEquals("gzip", response.headers().firstValue("Accept-Encoding").orElse(""));
+    }
+
+    private static byte[] gzip(byte[] body) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(body);
+        }
+        return out.toByteArray();
+    }
+
+    private String register(String email) throws Exception {
+        String body = mapper.writeValueAsString(Map.of("name", email, "email", email, "password", "gzip-password"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
@@ -0,0 +1,18 @@
+package com.offlinepay.backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+// Baseline: Tomcat's default pool of 200 platform request threads
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+@Import(RequestLoadTestSupport.DatabaseLatency.class)
+class PlatformThreadRequestLoadTest extends RequestLoadTestSupport {
+
+    @Test
+    void thousandConcurrentClients() throws Exception {
+        runLoad("platform");
+    }
+}
@@ -0,0 +1,128 @@
+package com.offlinepay.backend;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.offlinepay.backend.blob.BlobStore;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.verify;
+
+// Against the real Tomcat: a picture in the filesystem store is handed to
+// the connector's sendfile without the application copying a byte, and a
+// store without local files falls back to copying through the response.
+// Either way the client gets the uploaded bytes back, and the profile JSON
+// carries the picture hash but not the public key.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ProfilePictureDownloadTest {
+
+    private static final byte[] PNG_SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n' };
+
+    @LocalServerPort
+    int port;
+
+    @SpyBean
+    private BlobStore blobStore;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @Test
+    void localFileIsSentWithSendfile() throws Exception {
+        String token = register("sendfile@test.local");
+        byte[] picture = picture();
+        String hash = upload(token, picture);
+
+        HttpResponse<byte[]> response = download(token);
+
+        assertEquals(200, response.statusCode());
+        assertEquals("image/png", response.headers().firstValue("Content-Type").orElse(""));
+        assertEquals("\"" + hash + "\"", response.headers().firstValue("ETag").orElse(""));
+        assertArrayEquals(picture, response.body());
+        verify(blobStore, never()).transferTo(anyString(), any());
+
+        JsonNode profile = mapper.readTree(client.send(HttpRequest.newBuilder(uri("/api/user/profile"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofString()).body());
+        assertEquals(hash, profile.get("profilePicHash").asText());
+        assertEquals("sendfile@test.local", profile.get("email").asText());
+        assertFalse(profile.has("publicKey"));
+        assertFalse(profile.has("password"));
+    }
+
+    @Test
+    void storeWithoutLocalFilesIsCopied() throws Exception {
+        String token = register("copied@test.local");
+        byte[] picture = picture();
+        upload(token, picture);
+        doReturn(Optional.empty()).when(blobStore).localFile(anyString());
+        try {
+            HttpResponse<byte[]> response = download(token);
+
+            assertEquals(200, response.statusCode());
+            assertArrayEquals(picture, response.body());
+            verify(blobStore, atLeastOnce()).transferTo(anyString(), any());
+        } finally {
+            reset(blobStore);
+        }
+    }
+
+    private static byte[] picture() {
+        byte[] picture = new byte[200 * 1024];
+        ThreadLocalRandom.current().nextBytes(picture);
+        System.arraycopy(PNG_SIGNATURE, 0, picture, 0, PNG_SIGNATURE.length);
+        return picture;
+    }
+
+    private String upload(String token, byte[] picture) throws Exception {
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/user/profile/picture"))
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "image/png")
+                .PUT(HttpRequest.BodyPublishers.ofByteArray(picture))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        assertEquals(200, response.statusCode(), response.body());
+        return mapper.readTree(response.body()).get("profilePicHash").asText();
+    }
+
+    private HttpResponse<byte[]> download(String token) throws Exception {
+        return client.send(HttpRequest.newBuilder(uri("/api/user/profile/picture"))
+                .header("Authorization", "Bearer " + token)
+                .GET()
+                .build(), HttpResponse.BodyHandlers.ofByteArray());
+    }
+
+    private String register(String email) throws Exception {
+        String body = mapper.writeValueAsString(Map.of("name", email, "email", email, "password", "picture-password"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
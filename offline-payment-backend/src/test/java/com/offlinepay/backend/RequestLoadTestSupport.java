@@ -0,0 +1,176 @@
+package com.offlinepay.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Tag;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.context.annotation.Bean;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Shared driver for the platform vs. virtual thread load tests: ROUNDS waves
+// of CLIENTS concurrent authenticated history reads. The history query is not
+// cached, and DatabaseLatency holds every statement for STATEMENT_LATENCY_MS
+// as a remote database would, so each request blocks on a pooled connection.
+// Results go to target/load-test/<mode>.properties for comparing the modes.
+// Tagged "load": only run by the load-test profile (mvn -Pload-test test).
+@Tag("load")
+abstract class RequestLoadTestSupport {
+
+    static final int CLIENTS = 1000;
+    static final int ROUNDS = 5;
+    static final long STATEMENT_LATENCY_MS = 5;
+
+    @LocalServerPort
+    int port;
+
+    void runLoad(String mode) throws Exception {
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(Duration.ofSeconds(10))
+                .build();
+        HttpRequest history = HttpRequest.newBuilder(uri("/api/transaction/history"))
+                .header("Authorization", "Bearer " + register(client, mode))
+                .timeout(Duration.ofSeconds(60))
+                .GET()
+                .build();
+
+        long[] latencies = new long[CLIENTS * ROUNDS];
+        AtomicInteger failures = new AtomicInteger();
+        long start = System.nanoTime();
+
+        for (int round = 0; round < ROUNDS; round++) {
+            List<CompletableFuture<Void>> responses = new ArrayList<>(CLIENTS);
+            for (int i = 0; i < CLIENTS; i++) {
+                int slot = round * CLIENTS + i;
+                long sentAt = System.nanoTime();
+                responses.add(client.sendAsync(history, HttpResponse.BodyHandlers.discarding())
+                        .thenAccept(response -> {
+                            latencies[slot] = System.nanoTime() - sentAt;
+                            if (response.statusCode() != 200) {
+                                failures.incrementAndGet();
+                            }
+                        })
+                        .exceptionally(e -> {
+                            failures.incrementAndGet();
+                            return null;
+                        }));
+            }
+            CompletableFuture.allOf(responses.toArray(new CompletableFuture[0])).get(120, TimeUnit.SECONDS);
+        }
+
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        long[] sorted = latencies.clone();
+        Arrays.sort(sorted);
+        double p50 = percentileMillis(sorted, 0.50);
+        double p99 = percentileMillis(sorted, 0.99);
+
+        Path report = Path.of("target", "load-test", mode + ".properties");
+        Files.createDirectories(report.getParent());
+        Files.writeString(report, String.format(Locale.ROOT,
+                "mode=%s%nrequests=%d%nclients=%d%nstatement.latency.ms=%d%nelapsed.ms=%d%n"
+                        + "throughput.rps=%.0f%np50.ms=%.1f%np99.ms=%.1f%nfailures=%d%n",
+                mode, latencies.length, CLIENTS, STATEMENT_LATENCY_MS, elapsedMs,
+                latencies.length * 1000.0 / Math.max(elapsedMs, 1), p50, p99, failures.get()));
+
+        assertEquals(0, failures.get());
+        // Every request waited on at least one database round trip
+        assertTrue(sorted[0] >= TimeUnit.MILLISECONDS.toNanos(STATEMENT_LATENCY_MS), "p0 below statement latency");
+        assertTrue(p50 <= p99);
+    }
+
+    private String register(HttpClient client, String mode) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(Map.of(
+                "name", "Load " + mode,
+                "email", "load-" + mode + "@test.local",
+                "password", "load-test-password"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+
+    private static double percentileMillis(long[] sorted, double percentile) {
+        return sorted[(int) Math.ceil(percentile * sorted.length) - 1] / 1_000_000.0;
+    }
+
+    // Wraps the pool so every statement execution sleeps first, with its
+    // connection held, like a round trip to a database on another host
+    @TestConfiguration(proxyBeanMethods = false)
+    static class DatabaseLatency {
+
+        @Bean
+        static BeanPostProcessor databaseLatencyPostProcessor() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource ? slow(bean, DataSource.class) : bean;
+                }
+            };
+        }
+
+        private static Object slow(Object target, Class<?> type) {
+            InvocationHandler handler = (proxy, method, args) -> {
+                String name = method.getName();
+                if (target instanceof Statement && name.startsWith("execute")) {
+                    Thread.sleep(STATEMENT_LATENCY_MS);
+                }
+                Object result;
+                try {
+                    result = method.invoke(target, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getTargetException();
+                }
+                if (name.equals("unwrap")) {
+                    return result;
+                }
+                if (result instanceof Connection) {
+                    return slow(result, Connection.class);
+                }
+                if (result instanceof CallableStatement) {
+                    return slow(result, CallableStatement.class);
+                }
+                if (result instanceof PreparedStatement) {
+                    return slow(result, PreparedStatement.class);
+                }
+                if (result instanceof Statement) {
+                    return slow(result, Statement.class);
+                }
+                return result;
+            };
+            return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, handler);
+        }
+    }
+}
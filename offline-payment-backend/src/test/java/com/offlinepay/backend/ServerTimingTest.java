@@ -0,0 +1,78 @@
+package com.offlinepay.backend;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.offlinepay.backend.metrics.ServerTimingFilter;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "offlinepay.server-timing.allowed-users=timing-allowed@test.local")
+@ActiveProfiles("test")
+class ServerTimingTest {
+
+    @LocalServerPort
+    int port;
+
+    private final HttpClient client = HttpClient.newHttpClient();
+
+    @Test
+    void allowListedCallerGetsStageBreakdown() throws Exception {
+        String token = register("timing-allowed@test.local");
+
+        HttpResponse<String> traced = balance(token, true);
+        assertEquals(200, traced.statusCode());
+        String timing = traced.headers().firstValue(ServerTimingFilter.RESPONSE_HEADER).orElse("");
+        assertTrue(timing.contains("auth;dur="), timing);
+        assertTrue(timing.contains("db;dur="), timing);
+        assertTrue(timing.contains("serialize;dur="), timing);
+        assertTrue(timing.contains("total;dur="), timing);
+
+        // Without the request header nothing is recorded
+        assertFalse(balance(token, false).headers().firstValue(ServerTimingFilter.RESPONSE_HEADER).isPresent());
+    }
+
+    @Test
+    void otherCallersNeverSeeTimings() throws Exception {
+        String token = register("timing-denied@test.local");
+
+        HttpResponse<String> response = balance(token, true);
+        assertEquals(200, response.statusCode());
+        assertFalse(response.headers().firstValue(ServerTimingFilter.RESPONSE_HEADER).isPresent());
+    }
+
+    private HttpResponse<String> balance(String token, boolean traced) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri("/api/wallet/balance"))
+                .header("Authorization", "Bearer " + token)
+                .GET();
+        if (traced) {
+            request.header(ServerTimingFilter.REQUEST_HEADER, "1");
+        }
+        return client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private String register(String email) throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        String body = mapper.writeValueAsString(Map.of("name", email, "email", email, "password", "timing-password"));
+        HttpResponse<String> response = client.send(HttpRequest.newBuilder(uri("/api/auth/register"))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build(), HttpResponse.BodyHandlers.ofString());
+        return mapper.readTree(response.body()).get("token").asText();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
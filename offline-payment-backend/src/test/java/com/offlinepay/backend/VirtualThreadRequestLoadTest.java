@@ -0,0 +1,25 @@
+package com.offlinepay.backend;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+// One virtual thread per request behind ConcurrencyLimitFilter; compare with
+// PlatformThreadRequestLoadTest. Virtual threads need Java 21, which the
+// load-test profile compiles for. Queued requests wait for a slot instead of
+// being shed, so both modes serve the same load.
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {
+                "spring.threads.virtual.enabled=true",
+                "offlinepay.virtual-threads.max-wait-ms=60000"
+        })
+@ActiveProfiles("test")
+@Import(RequestLoadTestSupport.DatabaseLatency.class)
+class VirtualThreadRequestLoadTest extends RequestLoadTestSupport {
+
+    @Test
+    void thousandConcurrentClients() throws Exception {
+        runLoad("virtual");
+    }
+}
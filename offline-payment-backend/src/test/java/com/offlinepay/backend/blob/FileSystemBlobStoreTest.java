@@ -0,0 +1,61 @@
+package com.offlinepay.backend.blob;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Blobs are named by their SHA-256, stored once however often they are put,
+// read back byte for byte, and oversized uploads leave nothing behind.
+class FileSystemBlobStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesContentUnderItsHashOnce() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(root.toString());
+        byte[] content = "not really a picture".getBytes(StandardCharsets.UTF_8);
+        String expected = HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+
+        StoredBlob first = store.put(new ByteArrayInputStream(content), 1024);
+        StoredBlob second = store.put(new ByteArrayInputStream(content), 1024);
+
+        assertEquals(expected, first.hash());
+        assertEquals(first, second);
+        assertEquals(1, countFiles());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertEquals(content.length, store.transferTo(first.hash(), Channels.newChannel(out)));
+        assertArrayEquals(content, out.toByteArray());
+        assertEquals(content.length, store.stat(first.hash()).orElseThrow().size());
+    }
+
+    @Test
+    void rejectsOversizedContent() throws Exception {
+        FileSystemBlobStore store = new FileSystemBlobStore(root.toString());
+
+        assertThrows(BlobTooLargeException.class, () -> store.put(new ByteArrayInputStream(new byte[2048]), 1024));
+        assertEquals(0, countFiles());
+        assertTrue(store.stat("0".repeat(64)).isEmpty());
+    }
+
+    private long countFiles() throws Exception {
+        try (Stream<Path> files = Files.walk(root)) {
+            return files.filter(Files::isRegularFile).count();
+        }
+    }
+}
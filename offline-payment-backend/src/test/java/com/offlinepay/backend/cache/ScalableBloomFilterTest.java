@@ -0,0 +1,62 @@
+package com.offlinepay.backend.cache;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// No false negatives, and the measured false-positive rate stays within the
+// configured target both at the first slice's capacity and after growing.
+// Keys are sequential, the shape that exposes correlated probe positions.
+class ScalableBloomFilterTest {
+
+    private static final double TARGET_RATE = 0.01;
+    private static final int PROBES = 200_000;
+
+    @Test
+    void falsePositiveRateStaysWithinTarget() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(50_000, TARGET_RATE);
+        fill(filter, 50_000);
+
+        assertEquals(1, filter.sliceCount());
+        assertNoFalseNegatives(filter, 50_000);
+        double measured = measuredFalsePositiveRate(filter);
+        assertTrue(measured <= TARGET_RATE, "measured " + measured);
+        assertTrue(filter.expectedFalsePositiveRate() <= TARGET_RATE);
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        ScalableBloomFilter filter = new ScalableBloomFilter(1_000, TARGET_RATE);
+        long initialBytes = filter.memoryBytes();
+        fill(filter, 20_000);
+
+        assertTrue(filter.sliceCount() > 1, "slices " + filter.sliceCount());
+        assertTrue(filter.memoryBytes() > initialBytes);
+        assertNoFalseNegatives(filter, 20_000);
+        double measured = measuredFalsePositiveRate(filter);
+        assertTrue(measured <= TARGET_RATE, "measured " + measured);
+    }
+
+    private static void fill(ScalableBloomFilter filter, int count) {
+        for (int i = 0; i < count; i++) {
+            filter.put("nonce-" + i);
+        }
+    }
+
+    private static void assertNoFalseNegatives(ScalableBloomFilter filter, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(filter.mightContain("nonce-" + i), "nonce-" + i);
+        }
+    }
+
+    private static double measuredFalsePositiveRate(ScalableBloomFilter filter) {
+        int falsePositives = 0;
+        for (int i = 0; i < PROBES; i++) {
+            if (filter.mightContain("absent-" + i)) {
+                falsePositives++;
+            }
+        }
+        return (double) falsePositives / PROBES;
+    }
+}
@@ -0,0 +1,87 @@
+package com.offlinepay.backend.codec;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.security.SignatureVerifier;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A batch must survive the binary round trip with signatures still valid,
+// which depends on amounts coming back in the form the client signed.
+class OfflineBatchCodecTest {
+
+    @Test
+    void roundTripKeepsSignaturesValid() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        KeyPair keys = generator.generateKeyPair();
+
+        List<OfflineTransactionRequest> batch = List.of(
+                signed(keys, "12.5", UUID.randomUUID().toString()),
+                signed(keys, "50", "terminal-7/receipt-000123"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OfflineBatchCodec.write(batch, out);
+        byte[] encoded = out.toByteArray();
+        // 8-byte header, 121-byte UUID-nonce record, 105 bytes + 25-byte nonce
+        assertEquals(8 + 121 + 130, encoded.length);
+
+        List<OfflineTransactionRequest> decoded = OfflineBatchCodec.read(new ByteArrayInputStream(encoded));
+        assertEquals(batch, decoded);
+        SignatureVerifier verifier = new SignatureVerifier();
+        for (OfflineTransactionRequest request : decoded) {
+            assertTrue(verifier.verify(request, keys.getPublic()));
+        }
+    }
+
+    @Test
+    void amountsComeBackInShortestForm() {
+        assertEquals("12.5", OfflineBatchCodec.toAmount(1250).toString());
+        assertEquals("50", OfflineBatchCodec.toAmount(5000).toString());
+        assertEquals("0.01", OfflineBatchCodec.toAmount(1).toString());
+    }
+
+    @Test
+    void truncatedBatchIsRejected() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        OfflineBatchCodec.write(List.of(unsigned("1")), out);
+        byte[] truncated = Arrays.copyOf(out.toByteArray(), out.size() - 1);
+
+        assertThrows(EOFException.class, () -> OfflineBatchCodec.read(new ByteArrayInputStream(truncated)));
+    }
+
+    private static OfflineTransactionRequest signed(KeyPair keys, String amount, String nonce) throws Exception {
+        OfflineTransactionRequest request = unsigned(amount);
+        request.setNonce(nonce);
+        Signature signature = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signature.initSign(keys.getPrivate());
+        signature.update(SignatureVerifier.payload(request));
+        request.setSignature(Base64.getEncoder().encodeToString(signature.sign()));
+        return request;
+    }
+
+    private static OfflineTransactionRequest unsigned(String amount) {
+        OfflineTransactionRequest request = new OfflineTransactionRequest();
+        request.setSenderId(UUID.randomUUID());
+        request.setReceiverId(UUID.randomUUID());
+        request.setAmount(new BigDecimal(amount));
+        request.setNonce(UUID.randomUUID().toString());
+        request.setSignature(Base64.getEncoder().encodeToString(new byte[64]));
+        return request;
+    }
+}
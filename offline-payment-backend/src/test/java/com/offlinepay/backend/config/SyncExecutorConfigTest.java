@@ -0,0 +1,47 @@
+package com.offlinepay.backend.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// With every worker busy and the queue full, the submitting thread runs the
+// task itself instead of the upload being rejected.
+class SyncExecutorConfigTest {
+
+    @Test
+    void fullQueueRunsOnTheCaller() throws Exception {
+        AsyncTaskExecutor executor = new SyncExecutorConfig().syncExecutor(new MockEnvironment(), 1, 1, 10);
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch workerBusy = new CountDownLatch(1);
+        try {
+            executor.execute(() -> {
+                workerBusy.countDown();
+                await(release);
+            });
+            assertTrue(workerBusy.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> await(release)); // fills the queue
+
+            String[] ranOn = new String[1];
+            executor.execute(() -> ranOn[0] = Thread.currentThread().getName());
+            assertEquals(Thread.currentThread().getName(), ranOn[0]);
+        } finally {
+            release.countDown();
+            ((ThreadPoolTaskExecutor) executor).shutdown();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.offlinepay.backend.metrics;
+
+import com.offlinepay.backend.security.JwtService;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Only an allow-listed caller with a valid token gets its response buffered;
+// sending X-Server-Timing is not enough on its own.
+class ServerTimingFilterTest {
+
+    private final JwtService jwtService = new JwtService(100, 60_000);
+    private final ServerTimingFilter filter = new ServerTimingFilter(jwtService, Set.of("allowed@test.local"));
+
+    @Test
+    void allowListedCallerIsBuffered() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(traced("Bearer " + token("allowed@test.local")), response, chain);
+
+        assertInstanceOf(ContentCachingResponseWrapper.class, chain.getResponse());
+        assertTrue(response.containsHeader(ServerTimingFilter.RESPONSE_HEADER));
+    }
+
+    @Test
+    void otherCallersPassThroughUnbuffered() throws Exception {
+        for (String authorization : new String[] { "Bearer " + token("denied@test.local"), "Bearer forged", null }) {
+            MockHttpServletRequest request = traced(authorization);
+            MockHttpServletResponse response = new MockHttpServletResponse();
+            MockFilterChain chain = new MockFilterChain();
+
+            filter.doFilter(request, response, chain);
+
+            assertSame(response, chain.getResponse());
+            assertFalse(response.containsHeader(ServerTimingFilter.RESPONSE_HEADER));
+        }
+    }
+
+    private String token(String email) {
+        return jwtService.generateToken(email, UUID.randomUUID(), UUID.randomUUID());
+    }
+
+    private static MockHttpServletRequest traced(String authorization) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/wallet/balance");
+        request.addHeader(ServerTimingFilter.REQUEST_HEADER, "1");
+        if (authorization != null) {
+            request.addHeader("Authorization", authorization);
+        }
+        return request;
+    }
+}
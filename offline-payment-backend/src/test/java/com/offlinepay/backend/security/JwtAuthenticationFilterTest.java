@@ -0,0 +1,109 @@
+package com.offlinepay.backend.security;
+
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.security.Key;
+import java.time.LocalDateTime;
+import java.util.Date;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Current tokens carry the user and wallet ids, so the principal comes from
+// the claims alone. Tokens issued before the id claims fall back to one
+// lookup by email; an unknown email leaves the request unauthenticated.
+@SpringBootTest
+@ActiveProfiles("test")
+class JwtAuthenticationFilterTest {
+
+    @Autowired
+    private JwtAuthenticationFilter jwtAuthenticationFilter;
+
+    @Autowired
+    private JwtService jwtService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @AfterEach
+    void clearContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void principalComesFromTheClaims() throws Exception {
+        // Ids no row has: the filter must not be looking them up
+        UUID userId = UUID.randomUUID();
+        UUID walletId = UUID.randomUUID();
+        String token = jwtService.generateToken("claims-only@test.local", userId, walletId);
+
+        assertEquals(new AuthenticatedUser(userId, walletId, "claims-only@test.local"), authenticate(token));
+    }
+
+    @Test
+    void legacyTokenResolvesIdsByEmail() throws Exception {
+        User user = createUser("legacy@test.local");
+        UUID walletId = walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(BigDecimal.ZERO)
+                .lastSyncedAt(LocalDateTime.now())
+                .build()).getId();
+
+        assertEquals(new AuthenticatedUser(user.getId(), walletId, "legacy@test.local"),
+                authenticate(legacyToken("legacy@test.local")));
+    }
+
+    @Test
+    void legacyTokenForUnknownEmailIsNotAuthenticated() throws Exception {
+        assertNull(authenticate(legacyToken("nobody@test.local")));
+    }
+
+    private AuthenticatedUser authenticate(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/wallet/balance");
+        request.addHeader("Authorization", "Bearer " + token);
+        jwtAuthenticationFilter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication == null ? null : (AuthenticatedUser) authentication.getPrincipal();
+    }
+
+    // Signed with the service's key but without the uid/wid claims
+    private String legacyToken(String email) {
+        Key signKey = (Key) ReflectionTestUtils.getField(jwtService, "signKey");
+        return Jwts.builder()
+                .setSubject(email)
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(signKey, SignatureAlgorithm.HS256)
+                .compact();
+    }
+
+    private User createUser(String email) {
+        return userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
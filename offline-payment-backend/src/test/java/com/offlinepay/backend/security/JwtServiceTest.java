@@ -0,0 +1,86 @@
+package com.offlinepay.backend.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+import io.jsonwebtoken.security.Keys;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.Date;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A token is verified once and then served from the claims cache; forged
+// tokens are never cached, and a cached token stops being accepted when the
+// token itself expires, whatever is left of the cache TTL.
+class JwtServiceTest {
+
+    @Test
+    void secondValidationIsACacheHit() {
+        JwtService jwtService = new JwtService(100, 60_000);
+        UUID userId = UUID.randomUUID();
+        UUID walletId = UUID.randomUUID();
+        String token = jwtService.generateToken("cache@test.local", userId, walletId);
+
+        Claims first = jwtService.validateToken(token).orElseThrow();
+        assertEquals(1, jwtService.cacheMissCount());
+        assertEquals(0, jwtService.cacheHitCount());
+
+        Claims second = jwtService.validateToken(token).orElseThrow();
+        assertEquals(1, jwtService.cacheMissCount());
+        assertEquals(1, jwtService.cacheHitCount());
+        assertEquals(first.getSubject(), second.getSubject());
+        assertEquals(new AuthenticatedUser(userId, walletId, "cache@test.local"), jwtService.toPrincipal(second));
+    }
+
+    @Test
+    void forgedTokenIsNeverCached() {
+        JwtService jwtService = new JwtService(100, 60_000);
+        String forged = Jwts.builder()
+                .setSubject("forged@test.local")
+                .setExpiration(new Date(System.currentTimeMillis() + 60_000))
+                .signWith(Keys.secretKeyFor(SignatureAlgorithm.HS256))
+                .compact();
+
+        assertTrue(jwtService.validateToken(forged).isEmpty());
+        assertTrue(jwtService.validateToken(forged).isEmpty());
+        assertEquals(2, jwtService.cacheMissCount());
+        assertEquals(0, jwtService.cacheHitCount());
+    }
+
+    @Test
+    void cacheTtlForcesReverification() throws InterruptedException {
+        JwtService jwtService = new JwtService(100, 1);
+        String token = jwtService.generateToken("ttl@test.local", UUID.randomUUID(), UUID.randomUUID());
+
+        assertTrue(jwtService.validateToken(token).isPresent());
+        Thread.sleep(5);
+        assertTrue(jwtService.validateToken(token).isPresent());
+        assertEquals(2, jwtService.cacheMissCount());
+    }
+
+    @Test
+    void cachedTokenExpiresWithTheToken() throws InterruptedException {
+        JwtService jwtService = new JwtService(100, 60_000);
+        Key signKey = (Key) ReflectionTestUtils.getField(jwtService, "signKey");
+        // exp has second precision, so this lands 0.5 to 1.5 s ahead
+        String token = Jwts.builder()
+                .setSubject("expiring@test.local")
+                .setExpiration(new Date(System.currentTimeMillis() + 1_500))
+                .signWith(signKey, SignatureAlgorithm.HS256)
+                .compact();
+
+        Optional<Claims> fresh = jwtService.validateToken(token);
+        assertTrue(fresh.isPresent());
+        Thread.sleep(2_000);
+
+        assertTrue(jwtService.validateToken(token).isEmpty());
+        assertNotEquals(0, jwtService.cacheHitCount());
+    }
+}
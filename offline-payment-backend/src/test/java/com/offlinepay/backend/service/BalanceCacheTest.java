@@ -0,0 +1,88 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Repeat reads come from memory, and a read after a committed write never
+// returns the balance from before it; a rolled-back write changes nothing.
+@SpringBootTest
+@ActiveProfiles("test")
+class BalanceCacheTest {
+
+    @Autowired
+    private BalanceCache balanceCache;
+
+    @Autowired
+    private WalletMutationService walletMutationService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void readsAfterLocalWritesAreNeverStale() {
+        UUID alice = createUser("alice-cache@test.local", "100.00");
+        UUID bob = createUser("bob-cache@test.local", "0.00");
+
+        assertBalance("100.00", alice);
+        long hits = balanceCache.hitCount();
+        assertBalance("100.00", alice);
+        assertEquals(hits + 1, balanceCache.hitCount());
+
+        assertBalance("0.00", bob);
+        inTransaction(() -> walletMutationService.transfer(alice, bob, new BigDecimal("30.00"), "Insufficient balance"));
+        assertBalance("70.00", alice);
+        assertBalance("30.00", bob);
+
+        inTransaction(() -> walletMutationService.credit(alice, new BigDecimal("5.00"), "Wallet not found"));
+        assertBalance("75.00", alice);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            walletMutationService.debit(alice, new BigDecimal("75.00"), "Insufficient balance", "Wallet not found");
+            status.setRollbackOnly();
+        });
+        assertBalance("75.00", alice);
+    }
+
+    private void assertBalance(String expected, UUID userId) {
+        assertEquals(0, new BigDecimal(expected).compareTo(balanceCache.get(userId).orElseThrow()));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    private UUID createUser(String email, String balance) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user.getId();
+    }
+}
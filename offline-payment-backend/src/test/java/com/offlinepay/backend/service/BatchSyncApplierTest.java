@@ -0,0 +1,126 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncOutcome;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// The set-based path must give the same outcomes and balances as applying
+// the items one by one in submission order.
+@SpringBootTest
+@ActiveProfiles("test")
+class BatchSyncApplierTest {
+
+    @Autowired
+    private BatchSyncApplier batchSyncApplier;
+
+    @Autowired
+    private WalletMutationService walletMutationService;
+
+    @Autowired
+    private WalletStriping walletStriping;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void chunkMatchesSequentialApply() {
+        UUID alice = createUser("batch-alice@test.local");
+        UUID bob = createUser("batch-bob@test.local");
+        UUID merchant = createUser("batch-merchant@test.local");
+        fund(alice, "100.00");
+        walletStriping.setStripes(merchant, 4);
+        for (int i = 0; i < 20; i++) {
+            fund(merchant, "10.00");
+        }
+
+        String prefix = UUID.randomUUID().toString();
+        List<OfflineTransactionRequest> items = List.of(
+                request(prefix + "-1", alice, bob, "60.00"),
+                request(prefix + "-2", alice, bob, "50.00"),   // only 40 left
+                request(prefix + "-3", bob, alice, "30.00"),   // spends the credit from item 1
+                request(prefix + "-1", alice, bob, "60.00"),   // same nonce again
+                request(prefix + "-5", UUID.randomUUID(), bob, "1.00"),
+                request(prefix + "-6", merchant, alice, "150.00")); // needs money from the stripes
+
+        SyncResult[] results = batchSyncApplier.apply(items);
+
+        assertEquals(SyncOutcome.APPLIED, results[0].getOutcome());
+        assertEquals("Insufficient balance for offline transaction", results[1].getReason());
+        assertEquals(SyncOutcome.APPLIED, results[2].getOutcome());
+        assertEquals(SyncOutcome.DUPLICATE, results[3].getOutcome());
+        assertEquals("Sender not found", results[4].getReason());
+        assertEquals(SyncOutcome.APPLIED, results[5].getOutcome());
+
+        assertBalance("220.00", alice);
+        assertBalance("30.00", bob);
+        assertBalance("50.00", merchant);
+
+        // Replaying the whole chunk changes nothing
+        for (SyncResult replay : batchSyncApplier.apply(List.of(items.get(0), items.get(2), items.get(5)))) {
+            assertEquals(SyncOutcome.DUPLICATE, replay.getOutcome());
+        }
+        assertBalance("220.00", alice);
+    }
+
+    private void assertBalance(String expected, UUID userId) {
+        UUID walletId = walletRepository.findIdByUserId(userId).orElseThrow();
+        assertEquals(0, new BigDecimal(expected).compareTo(walletRepository.findBalanceById(walletId).orElseThrow()));
+        assertEquals(0, new BigDecimal(expected).compareTo(ledgerService.balanceOf(userId)));
+    }
+
+    private void fund(UUID userId, String amount) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                walletMutationService.credit(userId, new BigDecimal(amount), "Wallet not found"));
+    }
+
+    private static OfflineTransactionRequest request(String nonce, UUID sender, UUID receiver, String amount) {
+        OfflineTransactionRequest request = new OfflineTransactionRequest();
+        request.setNonce(nonce);
+        request.setSenderId(sender);
+        request.setReceiverId(receiver);
+        request.setAmount(new BigDecimal(amount));
+        request.setSignature("verified-upstream");
+        return request;
+    }
+
+    private UUID createUser(String email) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(BigDecimal.ZERO)
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user.getId();
+    }
+}
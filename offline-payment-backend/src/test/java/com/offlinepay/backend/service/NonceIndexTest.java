@@ -0,0 +1,96 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.OfflineTransaction;
+import com.offlinepay.backend.entity.TransactionStatus;
+import com.offlinepay.backend.repository.OfflineTransactionRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// The filter only ever saves a query: before warm-up every check goes to the
+// database, after warm-up a filter "no" is trusted, and a filter "maybe" for
+// a nonce that was never committed is settled by the database.
+@SpringBootTest
+@ActiveProfiles("test")
+class NonceIndexTest {
+
+    @Autowired
+    private OfflineTransactionRepository offlineTransactionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void warmUpLoadsExistingNonces() {
+        String synced = saveOfflineTransaction();
+        NonceIndex index = newIndex();
+
+        assertFalse(index.isWarmed());
+        assertFalse(index.isKnown(UUID.randomUUID().toString()));
+        assertEquals(1, index.databaseCheckCount());
+        assertEquals(0, index.falsePositiveCount());
+
+        index.warmUp();
+
+        assertTrue(index.isWarmed());
+        assertFalse(index.isKnown(UUID.randomUUID().toString()));
+        assertEquals(1, index.filterNegativeCount());
+        assertEquals(1, index.databaseCheckCount());
+
+        assertTrue(index.isKnown(synced));
+        assertEquals(2, index.databaseCheckCount());
+        // Confirmed nonces are answered from the recent cache afterwards
+        assertTrue(index.isKnown(synced));
+        assertEquals(1, index.recentHitCount());
+        assertEquals(2, index.databaseCheckCount());
+    }
+
+    @Test
+    void filterFalsePositiveFallsBackToDatabase() {
+        NonceIndex index = newIndex();
+        index.warmUp();
+        String rolledBack = UUID.randomUUID().toString();
+
+        // The filter keeps a nonce whose transaction rolled back
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            index.record(rolledBack);
+            status.setRollbackOnly();
+        });
+
+        assertFalse(index.isKnown(rolledBack));
+        assertEquals(1, index.databaseCheckCount());
+        assertEquals(1, index.falsePositiveCount());
+
+        assertTrue(index.findKnown(List.of(rolledBack, UUID.randomUUID().toString())).isEmpty());
+        assertEquals(2, index.falsePositiveCount());
+        assertEquals(1.0, index.observedFalsePositiveRate());
+    }
+
+    private NonceIndex newIndex() {
+        return new NonceIndex(offlineTransactionRepository, transactionManager, 1_000, 0.01, 100);
+    }
+
+    private String saveOfflineTransaction() {
+        String nonce = UUID.randomUUID().toString();
+        offlineTransactionRepository.save(OfflineTransaction.builder()
+                .senderId(UUID.randomUUID())
+                .receiverId(UUID.randomUUID())
+                .amount(new BigDecimal("1.00"))
+                .nonce(nonce)
+                .signature("c2lnbmF0dXJl")
+                .status(TransactionStatus.COMPLETED)
+                .build());
+        return nonce;
+    }
+}
@@ -0,0 +1,34 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// COPY rows carry client-supplied nonce and signature text, which must not be
+// able to break out of their CSV fields.
+class OfflineLogWriterTest {
+
+    @Test
+    void clientTextIsQuotedInCopyRows() {
+        OfflineTransactionRequest row = new OfflineTransactionRequest();
+        row.setSenderId(UUID.randomUUID());
+        row.setReceiverId(UUID.randomUUID());
+        row.setAmount(new BigDecimal("1E+1"));
+        row.setNonce("a,\"b\"\nc");
+        row.setSignature("sig");
+
+        StringBuilder out = new StringBuilder();
+        OfflineLogWriter.appendCsvRow(out, row);
+        String line = out.toString();
+
+        String expectedTail = "," + row.getSenderId() + "," + row.getReceiverId() + ",10,\"a,\"\"b\"\"\nc\",\"sig\"\n";
+        assertTrue(line.endsWith(expectedTail), line);
+        // Two generated ids in front of the sender
+        assertEquals(73, line.length() - expectedTail.length());
+    }
+}
@@ -0,0 +1,187 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncOutcome;
+import com.offlinepay.backend.dto.SyncResult;
+import com.offlinepay.backend.entity.OfflineTransaction;
+import com.offlinepay.backend.entity.TransactionStatus;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.repository.OfflineTransactionRepository;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.SignatureVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+// Per-item path (batch apply off): one group per sender runs in parallel,
+// and each sender's items apply in submission order, so a sender's later
+// payment sees the balance its earlier ones left.
+@SpringBootTest(properties = "offlinepay.sync.batch-apply=false")
+@ActiveProfiles("test")
+class OfflineSyncEngineTest {
+
+    private static final int SENDERS = 8;
+
+    @Autowired
+    private OfflineSyncEngine offlineSyncEngine;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private OfflineTransactionRepository offlineTransactionRepository;
+
+    @Test
+    void senderItemsApplyInSubmissionOrder() throws Exception {
+        UUID merchant = createUser("engine-merchant@test.local", null, "0.00").getId();
+        List<User> senders = new ArrayList<>();
+        List<KeyPair> keys = new ArrayList<>();
+        for (int s = 0; s < SENDERS; s++) {
+            KeyPair pair = keyPair();
+            keys.add(pair);
+            senders.add(createUser("engine-sender-" + s + "@test.local", pair, "100.00"));
+        }
+
+        // Interleaved across senders, all paying the same merchant
+        List<OfflineTransactionRequest> batch = new ArrayList<>();
+        for (String amount : List.of("60", "50", "40")) {
+            for (int s = 0; s < SENDERS; s++) {
+                batch.add(signed(keys.get(s), senders.get(s).getId(), merchant, amount));
+            }
+        }
+        OfflineTransactionRequest forged = signed(keyPair(), senders.get(0).getId(), merchant, "1");
+        batch.add(forged);
+        batch.add(signed(keyPair(), UUID.randomUUID(), merchant, "1"));
+
+        List<SyncResult> results = offlineSyncEngine.syncOfflineTransactions(batch);
+
+        for (int s = 0; s < SENDERS; s++) {
+            assertEquals(SyncOutcome.APPLIED, results.get(s).getOutcome());
+            assertEquals("Insufficient balance for offline transaction", results.get(SENDERS + s).getReason());
+            assertEquals(SyncOutcome.APPLIED, results.get(2 * SENDERS + s).getOutcome());
+            assertBalance("0.00", senders.get(s).getId());
+        }
+        assertEquals("Invalid digital signature", results.get(3 * SENDERS).getReason());
+        assertEquals("Sender not found", results.get(3 * SENDERS + 1).getReason());
+        assertBalance("800.00", merchant);
+    }
+
+    @Test
+    void replayMissedByNonceIndexFailsBeforeTheTransfer() throws Exception {
+        KeyPair key = keyPair();
+        UUID sender = createUser("engine-replay-sender@test.local", key, "0.00").getId();
+        UUID merchant = createUser("engine-replay-merchant@test.local", null, "0.00").getId();
+        OfflineTransactionRequest request = signed(key, sender, merchant, "10");
+
+        // Committed behind the nonce index's back, as a concurrent sync would
+        offlineTransactionRepository.save(OfflineTransaction.builder()
+                .senderId(sender)
+                .receiverId(merchant)
+                .amount(request.getAmount())
+                .nonce(request.getNonce())
+                .signature(request.getSignature())
+                .status(TransactionStatus.COMPLETED)
+                .build());
+
+        // The empty wallet would reject the transfer; the flushed nonce insert
+        // has to fail first
+        List<SyncResult> results = offlineSyncEngine.syncOfflineTransactions(List.of(request));
+
+        assertEquals(SyncOutcome.DUPLICATE, results.get(0).getOutcome());
+        assertBalance("0.00", sender);
+        assertBalance("0.00", merchant);
+    }
+
+    @Test
+    void partitionKeepsSubmissionOrderWithinSender() {
+        UUID alice = UUID.randomUUID();
+        UUID bob = UUID.randomUUID();
+        List<OfflineTransactionRequest> batch = new ArrayList<>();
+        for (UUID sender : List.of(alice, bob, alice, alice, bob)) {
+            OfflineTransactionRequest request = new OfflineTransactionRequest();
+            request.setSenderId(sender);
+            batch.add(request);
+        }
+
+        // Index 1 failed an earlier stage and is left out
+        List<List<Integer>> groups = OfflineSyncEngine.partition(batch, List.of(0, 2, 3, 4));
+
+        assertEquals(List.of(List.of(0, 2, 3), List.of(4)), groups);
+    }
+
+    @Test
+    void everyRejectionReasonHasItsOwnMessage() {
+        Set<String> messages = new HashSet<>();
+        for (RejectionReason reason : RejectionReason.values()) {
+            messages.add(OfflineSyncEngine.describe(reason));
+        }
+        assertEquals(RejectionReason.values().length, messages.size(), messages.toString());
+        assertEquals("Receiver not found", OfflineSyncEngine.describe(RejectionReason.RECEIVER_NOT_FOUND));
+        assertEquals("Sender wallet not found", OfflineSyncEngine.describe(RejectionReason.SENDER_WALLET_NOT_FOUND));
+        assertEquals("Receiver wallet not found",
+                OfflineSyncEngine.describe(RejectionReason.RECEIVER_WALLET_NOT_FOUND));
+    }
+
+    private static OfflineTransactionRequest signed(KeyPair key, UUID sender, UUID receiver, String amount)
+            throws Exception {
+        OfflineTransactionRequest request = new OfflineTransactionRequest();
+        request.setSenderId(sender);
+        request.setReceiverId(receiver);
+        request.setAmount(new BigDecimal(amount));
+        request.setNonce(UUID.randomUUID().toString());
+        Signature signature = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signature.initSign(key.getPrivate());
+        signature.update(SignatureVerifier.payload(request));
+        request.setSignature(Base64.getEncoder().encodeToString(signature.sign()));
+        return request;
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private void assertBalance(String expected, UUID userId) {
+        assertEquals(0, new BigDecimal(expected).compareTo(walletRepository.findBalanceByUserId(userId).orElseThrow()));
+    }
+
+    private User createUser(String email, KeyPair key, String balance) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .publicKey(key == null ? null : Base64.getEncoder().encodeToString(key.getPublic().getEncoded()))
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user;
+    }
+}
@@ -0,0 +1,90 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.service.ProfilePictureService.ProfilePicture;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// Every legacy inline picture leaves the users row, including formats new
+// uploads refuse, so none is retried on each start or lost to the user.
+@SpringBootTest
+@ActiveProfiles("test")
+class ProfilePictureMigrationTest {
+
+    private static final byte[] PNG = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1a, '\n', 0, 0, 0, 0 };
+    private static final String SVG = "<svg xmlns=\"http://www.w3.org/2000/svg\"/>";
+
+    @Autowired
+    private ProfilePictureMigration migration;
+
+    @Autowired
+    private ProfilePictureService profilePictureService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void addLegacyColumn() {
+        jdbcTemplate.execute("alter table users add column profile_pic clob");
+    }
+
+    @AfterEach
+    void dropLegacyColumn() {
+        jdbcTemplate.execute("alter table users drop column profile_pic");
+    }
+
+    @Test
+    void unsupportedPicturesAreMovedAndStayReadable() throws Exception {
+        UUID png = legacyUser("legacy-png@test.local",
+                "data:image/png;base64," + Base64.getEncoder().encodeToString(PNG));
+        UUID svg = legacyUser("legacy-svg@test.local",
+                Base64.getEncoder().encodeToString(SVG.getBytes(StandardCharsets.UTF_8)));
+        UUID text = legacyUser("legacy-text@test.local", "not base64 at all!");
+
+        migration.migrate();
+
+        assertEquals(0, jdbcTemplate.queryForObject(
+                "select count(*) from users where profile_pic is not null", Integer.class));
+
+        ProfilePicture pngPicture = profilePictureService.find(png).orElseThrow();
+        assertEquals("image/png", pngPicture.contentType());
+        assertEquals(PNG.length, pngPicture.size());
+
+        ProfilePicture svgPicture = profilePictureService.find(svg).orElseThrow();
+        assertNull(svgPicture.contentType());
+        assertEquals(SVG.length(), svgPicture.size());
+
+        // Not base64: kept verbatim rather than dropped
+        ProfilePicture textPicture = profilePictureService.find(text).orElseThrow();
+        assertNull(textPicture.contentType());
+        assertEquals("not base64 at all!".length(), textPicture.size());
+    }
+
+    private UUID legacyUser(String email, String inline) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        jdbcTemplate.update("update users set profile_pic = ? where id = ?", inline, user.getId());
+        return user.getId();
+    }
+}
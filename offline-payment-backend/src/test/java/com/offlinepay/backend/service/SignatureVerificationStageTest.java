@@ -0,0 +1,95 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.security.SignatureVerifier;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+// The verification stage runs in parallel but must report each item's
+// verdict at that item's position.
+@SpringBootTest
+@ActiveProfiles("test")
+class SignatureVerificationStageTest {
+
+    @Autowired
+    private SignatureVerificationStage signatureVerificationStage;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Test
+    void verdictsLineUpWithItems() throws Exception {
+        KeyPair key = keyPair();
+        UUID signer = createUser("stage-signer@test.local", key).getId();
+        UUID keyless = createUser("stage-keyless@test.local", null).getId();
+        UUID receiver = UUID.randomUUID();
+
+        List<OfflineTransactionRequest> batch = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            switch (i % 4) {
+                case 0 -> batch.add(signed(key, signer, receiver));
+                case 1 -> batch.add(signed(keyPair(), signer, receiver));   // someone else's key
+                case 2 -> batch.add(signed(key, keyless, receiver));        // sender never registered a key
+                default -> batch.add(signed(key, UUID.randomUUID(), receiver));
+            }
+        }
+
+        RejectionReason[] verdicts = signatureVerificationStage.verify(batch);
+
+        for (int i = 0; i < batch.size(); i++) {
+            switch (i % 4) {
+                case 0 -> assertNull(verdicts[i], "item " + i);
+                case 1, 2 -> assertEquals(RejectionReason.BAD_SIGNATURE, verdicts[i], "item " + i);
+                default -> assertEquals(RejectionReason.SENDER_NOT_FOUND, verdicts[i], "item " + i);
+            }
+        }
+    }
+
+    private static OfflineTransactionRequest signed(KeyPair key, UUID sender, UUID receiver) throws Exception {
+        OfflineTransactionRequest request = new OfflineTransactionRequest();
+        request.setSenderId(sender);
+        request.setReceiverId(receiver);
+        request.setAmount(new BigDecimal("12.5"));
+        request.setNonce(UUID.randomUUID().toString());
+        Signature signature = Signature.getInstance("SHA256withECDSAinP1363Format");
+        signature.initSign(key.getPrivate());
+        signature.update(SignatureVerifier.payload(request));
+        request.setSignature(Base64.getEncoder().encodeToString(signature.sign()));
+        return request;
+    }
+
+    private static KeyPair keyPair() throws Exception {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private User createUser(String email, KeyPair key) {
+        return userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .publicKey(key == null ? null : Base64.getEncoder().encodeToString(key.getPublic().getEncoded()))
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,64 @@
+package com.offlinepay.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// One NDJSON result per submitted item, in order, across chunk boundaries;
+// bad items are rejected on their own and a truncated body ends with an error.
+@SpringBootTest(properties = "offlinepay.sync.stream-chunk-size=2")
+@ActiveProfiles("test")
+class StreamingSyncServiceTest {
+
+    @Autowired
+    private StreamingSyncService streamingSyncService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void resultsStreamPerItemInOrder() throws Exception {
+        String unknownSender = item(UUID.randomUUID().toString(), "stream-1");
+        String body = "[" + unknownSender + ","
+                + "{\"senderId\":\"not-a-uuid\",\"receiverId\":\"" + UUID.randomUUID() + "\",\"amount\":1,"
+                + "\"nonce\":\"stream-2\",\"signature\":\"x\",\"extra\":{\"nested\":[1,2]}},"
+                + item(UUID.randomUUID().toString(), "") + ","
+                + "42,"
+                + item(UUID.randomUUID().toString(), "stream-5") + ","
+                + "{\"senderId\":";
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        streamingSyncService.sync(new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+
+        assertEquals(6, lines.length);
+        assertEquals("Sender not found", field(lines[0], "reason"));
+        assertEquals("stream-1", field(lines[0], "nonce"));
+        assertTrue(field(lines[1], "reason").startsWith("Invalid item"), lines[1]);
+        assertEquals("Nonce is required", field(lines[2], "reason"));
+        assertEquals("Item must be a JSON object", field(lines[3], "reason"));
+        assertEquals("stream-5", field(lines[4], "nonce"));
+        assertTrue(field(lines[5], "error").startsWith("Malformed sync batch"), lines[5]);
+    }
+
+    private String item(String senderId, String nonce) {
+        return "{\"senderId\":\"" + senderId + "\",\"receiverId\":\"" + UUID.randomUUID()
+                + "\",\"amount\":10,\"nonce\":\"" + nonce + "\",\"signature\":\"c2ln\"}";
+    }
+
+    private String field(String line, String name) throws Exception {
+        JsonNode node = objectMapper.readTree(line);
+        return node.get(name).asText();
+    }
+}
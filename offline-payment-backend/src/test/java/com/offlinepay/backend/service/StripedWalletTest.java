@@ -0,0 +1,147 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Credits spread over stripes must still read back as one balance, debits
+// must be able to spend money sitting in any stripe (also several times in
+// one transaction), and consolidating or removing stripes must move their
+// money into the wallet row without changing the total.
+@SpringBootTest
+@ActiveProfiles("test")
+class StripedWalletTest {
+
+    @Autowired
+    private WalletMutationService walletMutationService;
+
+    @Autowired
+    private WalletStriping walletStriping;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void stripedWalletBehavesLikeOneBalance() {
+        UUID merchant = createUser("merchant-stripes@test.local");
+        walletStriping.setStripes(merchant, 4);
+
+        for (int i = 0; i < 40; i++) {
+            inTransaction(() -> walletMutationService.credit(merchant, new BigDecimal("5.00"), "Wallet not found"));
+        }
+        assertEquals(0, new BigDecimal("200.00").compareTo(balanceOf(merchant)));
+
+        // More than any single stripe is likely to hold
+        inTransaction(() -> walletMutationService.debit(merchant, new BigDecimal("150.00"),
+                "Insufficient balance", "Wallet not found"));
+        assertEquals(0, new BigDecimal("50.00").compareTo(balanceOf(merchant)));
+
+        assertThrows(PaymentRejectedException.class, () -> inTransaction(() ->
+                walletMutationService.debit(merchant, new BigDecimal("50.01"), "Insufficient balance", "Wallet not found")));
+
+        walletStriping.consolidate();
+        walletStriping.setStripes(merchant, 1);
+        assertEquals(0, new BigDecimal("50.00").compareTo(balanceOf(merchant)));
+    }
+
+    @Test
+    void repeatedDrainsInOneTransactionSeeEachOther() {
+        UUID merchant = createUser("merchant-drains@test.local");
+        walletStriping.setStripes(merchant, 4);
+        for (int i = 0; i < 40; i++) {
+            inTransaction(() -> walletMutationService.credit(merchant, new BigDecimal("5.00"), "Wallet not found"));
+        }
+
+        // As a sync chunk would: several debits against the same stripes before commit
+        inTransaction(() -> {
+            walletMutationService.debit(merchant, new BigDecimal("80.00"), "Insufficient balance", "Wallet not found");
+            walletMutationService.debit(merchant, new BigDecimal("80.00"), "Insufficient balance", "Wallet not found");
+            assertEquals(0, new BigDecimal("40.00").compareTo(balanceOf(merchant)));
+        });
+        assertThrows(PaymentRejectedException.class, () -> inTransaction(() ->
+                walletMutationService.debit(merchant, new BigDecimal("40.01"), "Insufficient balance", "Wallet not found")));
+
+        walletStriping.setStripes(merchant, 1);
+        assertEquals(0, new BigDecimal("40.00").compareTo(balanceOf(merchant)));
+    }
+
+    @Test
+    void consolidationAndShrinkingMoveStripesIntoTheWalletRow() {
+        UUID merchant = createUser("merchant-consolidate@test.local");
+        walletStriping.setStripes(merchant, 4);
+        for (int i = 0; i < 40; i++) {
+            inTransaction(() -> walletMutationService.credit(merchant, new BigDecimal("5.00"), "Wallet not found"));
+        }
+
+        walletStriping.consolidate();
+        assertEquals(0, new BigDecimal("200.00").compareTo(walletRowBalance(merchant)));
+        assertEquals(0, BigDecimal.ZERO.compareTo(stripeTotal(merchant)));
+
+        for (int i = 0; i < 40; i++) {
+            inTransaction(() -> walletMutationService.credit(merchant, new BigDecimal("1.00"), "Wallet not found"));
+        }
+        walletStriping.setStripes(merchant, 2);
+        assertEquals(1, jdbcTemplate.queryForObject(
+                "select count(*) from wallet_stripes where user_id = ?", Integer.class, merchant));
+        assertEquals(0, new BigDecimal("240.00").compareTo(balanceOf(merchant)));
+        assertEquals(0, new BigDecimal("240.00").compareTo(walletRowBalance(merchant).add(stripeTotal(merchant))));
+    }
+
+    private void inTransaction(Runnable work) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> work.run());
+    }
+
+    private BigDecimal balanceOf(UUID userId) {
+        UUID walletId = walletRepository.findIdByUserId(userId).orElseThrow();
+        return walletRepository.findBalanceById(walletId).orElseThrow();
+    }
+
+    private BigDecimal walletRowBalance(UUID userId) {
+        return jdbcTemplate.queryForObject("select balance from wallets where user_id = ?", BigDecimal.class, userId);
+    }
+
+    private BigDecimal stripeTotal(UUID userId) {
+        return jdbcTemplate.queryForObject(
+                "select coalesce(sum(balance), 0) from wallet_stripes where user_id = ?", BigDecimal.class, userId);
+    }
+
+    private UUID createUser(String email) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(BigDecimal.ZERO)
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user.getId();
+    }
+}
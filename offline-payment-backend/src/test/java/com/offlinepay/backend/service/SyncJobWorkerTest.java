@@ -0,0 +1,136 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.OfflineTransactionRequest;
+import com.offlinepay.backend.dto.SyncJobResponse;
+import com.offlinepay.backend.dto.SyncOutcome;
+import com.offlinepay.backend.entity.SyncJob;
+import com.offlinepay.backend.entity.SyncJobStatus;
+import com.offlinepay.backend.repository.SyncJobRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Lease protocol of sync jobs (claim, advance, release) and a job run end to
+// end in chunks, with its outcomes read back page by page.
+@SpringBootTest(properties = "offlinepay.sync-jobs.chunk-size=2")
+@ActiveProfiles("test")
+class SyncJobWorkerTest {
+
+    @Autowired
+    private SyncJobService syncJobService;
+
+    @Autowired
+    private SyncJobRepository syncJobRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void leaseIsExclusiveUntilItExpires() {
+        UUID jobId = syncJobRepository.save(SyncJob.builder()
+                .submittedBy(UUID.randomUUID())
+                .status(SyncJobStatus.PENDING)
+                .total(4)
+                .createdAt(LocalDateTime.now())
+                .build()).getId();
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plusMinutes(1);
+
+        assertEquals(1, (int) inTransaction(() -> syncJobRepository.claim(jobId, now, leaseUntil)));
+        // A second worker cannot take a job with a live lease
+        assertEquals(0, (int) inTransaction(() -> syncJobRepository.claim(jobId, now, leaseUntil)));
+
+        // Advancing checks the expected position, so a chunk is recorded once
+        assertEquals(1, (int) inTransaction(() -> syncJobRepository.advance(jobId, 0, 2, 1, 0, 1, leaseUntil)));
+        assertEquals(0, (int) inTransaction(() -> syncJobRepository.advance(jobId, 0, 2, 1, 0, 1, leaseUntil)));
+
+        // Once the lease has run out another worker takes over from nextIndex
+        LocalDateTime later = leaseUntil.plusSeconds(1);
+        assertEquals(1, (int) inTransaction(() -> syncJobRepository.claim(jobId, later, later.plusMinutes(1))));
+        SyncJob resumed = syncJobRepository.findById(jobId).orElseThrow();
+        assertEquals(SyncJobStatus.RUNNING, resumed.getStatus());
+        assertEquals(2, resumed.getNextIndex());
+        assertEquals(1, resumed.getApplied());
+        assertEquals(1, resumed.getRejected());
+
+        // Released on shutdown: claimable again at once, position kept
+        assertEquals(1, (int) inTransaction(() -> syncJobRepository.release(jobId)));
+        SyncJob released = syncJobRepository.findById(jobId).orElseThrow();
+        assertEquals(SyncJobStatus.PENDING, released.getStatus());
+        assertNull(released.getLeaseUntil());
+        assertEquals(2, released.getNextIndex());
+
+        inTransaction(() -> syncJobRepository.complete(jobId, LocalDateTime.now()));
+    }
+
+    @Test
+    void reasonsAreCutToTheColumnWidth() {
+        assertNull(SyncJobWorker.truncate(null));
+        assertEquals("Receiver not found", SyncJobWorker.truncate("Receiver not found"));
+        assertEquals(SyncJobWorker.MAX_REASON_LENGTH, SyncJobWorker.truncate("x".repeat(4000)).length());
+    }
+
+    @Test
+    void jobRunsInChunksAndPagesItsOutcomes() throws Exception {
+        UUID submittedBy = UUID.randomUUID();
+        List<OfflineTransactionRequest> items = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            OfflineTransactionRequest request = new OfflineTransactionRequest();
+            request.setSenderId(UUID.randomUUID());
+            request.setReceiverId(UUID.randomUUID());
+            request.setAmount(new BigDecimal("1.00"));
+            request.setNonce(UUID.randomUUID().toString());
+            request.setSignature("c2lnbmF0dXJl");
+            items.add(request);
+        }
+
+        UUID jobId = syncJobService.submit(submittedBy, items).getJobId();
+        SyncJobResponse job = awaitCompletion(jobId, submittedBy);
+        assertEquals(5, job.getProcessed());
+        assertEquals(5, job.getRejected());
+
+        SyncJobResponse first = syncJobService.getJob(jobId, submittedBy, 0, 2).orElseThrow();
+        assertEquals(2, first.getResults().size());
+        assertEquals(2, first.getNextOffset());
+        assertEquals(items.get(0).getNonce(), first.getResults().get(0).getNonce());
+
+        SyncJobResponse last = syncJobService.getJob(jobId, submittedBy, 4, 2).orElseThrow();
+        assertEquals(1, last.getResults().size());
+        assertNull(last.getNextOffset());
+        assertEquals(items.get(4).getNonce(), last.getResults().get(0).getNonce());
+        assertEquals(SyncOutcome.REJECTED, last.getResults().get(0).getOutcome());
+
+        // Jobs are private to their submitter
+        assertTrue(syncJobService.getJob(jobId, UUID.randomUUID(), null, null).isEmpty());
+    }
+
+    private SyncJobResponse awaitCompletion(UUID jobId, UUID submittedBy) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (true) {
+            SyncJobResponse job = syncJobService.getJob(jobId, submittedBy, null, null).orElseThrow();
+            if (job.getStatus() == SyncJobStatus.COMPLETED || System.currentTimeMillis() > deadline) {
+                assertEquals(SyncJobStatus.COMPLETED, job.getStatus());
+                return job;
+            }
+            Thread.sleep(20);
+        }
+    }
+
+    private <T> T inTransaction(Supplier<T> work) {
+        return new TransactionTemplate(transactionManager).execute(status -> work.get());
+    }
+}
@@ -0,0 +1,112 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.TransactionHistoryItem;
+import com.offlinepay.backend.dto.TransactionHistoryPage;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Keyset paging over sent and received rows together: with many rows sharing
+// a createdAt, and pages ending inside those runs, walking the cursor visits
+// every row of the user's history exactly once and in the same order as the
+// full export.
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionHistoryTest {
+
+    private static final int PAGE_SIZE = 4;
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void cursorIsStableAcrossEqualTimestamps() throws Exception {
+        UUID user = createUser("history-user@test.local");
+        UUID peer = createUser("history-peer@test.local");
+        UUID other = createUser("history-other@test.local");
+
+        LocalDateTime base = LocalDateTime.of(2026, 1, 1, 12, 0);
+        Set<UUID> expected = new HashSet<>();
+        for (int tick = 0; tick < 3; tick++) {
+            LocalDateTime createdAt = base.plusSeconds(tick);
+            for (int i = 0; i < 5; i++) {
+                boolean sent = i % 2 == 0;
+                expected.add(insert(sent ? user : peer, sent ? peer : user, createdAt));
+            }
+            insert(peer, other, createdAt);   // not part of the user's history
+        }
+
+        List<TransactionHistoryItem> walked = new ArrayList<>();
+        String cursor = null;
+        do {
+            TransactionHistoryPage page = transactionService.getUserTransactions(user, cursor, PAGE_SIZE);
+            assertTrue(page.getItems().size() <= PAGE_SIZE);
+            walked.addAll(page.getItems());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        Set<UUID> seen = new HashSet<>();
+        for (int i = 0; i < walked.size(); i++) {
+            assertTrue(seen.add(walked.get(i).getId()), "row returned twice");
+            if (i > 0) {
+                assertFalse(walked.get(i).getCreatedAt().isAfter(walked.get(i - 1).getCreatedAt()));
+            }
+        }
+        assertEquals(expected, seen);
+
+        ByteArrayOutputStream export = new ByteArrayOutputStream();
+        transactionService.streamUserTransactions(user, export);
+        String[] lines = export.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(walked.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertTrue(lines[i].contains(walked.get(i).getId().toString()), "position " + i);
+        }
+
+        TransactionHistoryPage all = transactionService.getUserTransactions(user, null, expected.size());
+        assertEquals(expected.size(), all.getItems().size());
+        assertNull(all.getNextCursor());
+    }
+
+    private UUID insert(UUID sender, UUID receiver, LocalDateTime createdAt) {
+        UUID id = UUID.randomUUID();
+        jdbcTemplate.update("insert into transactions "
+                        + "(id, sender_id, receiver_id, amount, status, transaction_type, created_at) "
+                        + "values (?, ?, ?, 1.00, 'COMPLETED', 'ONLINE', ?)",
+                id, sender, receiver, Timestamp.valueOf(createdAt));
+        return id;
+    }
+
+    private UUID createUser(String email) {
+        return userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build()).getId();
+    }
+}
@@ -0,0 +1,144 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.entity.Transaction;
+import com.offlinepay.backend.entity.TransactionStatus;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Log rows are batched per transaction and written just before it commits:
+// nothing is written before that, nothing at all on rollback, a failed insert
+// fails the commit, and a nested REQUIRES_NEW transaction keeps its own rows.
+@SpringBootTest(properties = "offlinepay.transaction-log.batch-size=2")
+@ActiveProfiles("test")
+class TransactionLogBatcherTest {
+
+    @Autowired
+    private TransactionLogBatcher transactionLogBatcher;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void rowsAreWrittenInBatchesAtCommit() {
+        User sender = createUser("log-batch-batch@test.local");
+        long batchesBefore = transactionLogBatcher.batchCount();
+        long writtenBefore = transactionLogBatcher.writtenCount();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < 4; i++) {
+                transactionLogBatcher.append(row(sender));
+            }
+            transactionLogBatcher.appendAll(List.of(row(sender)));
+            assertEquals(0, countSentBy(sender));
+        });
+
+        assertEquals(5, countSentBy(sender));
+        assertEquals(5, transactionLogBatcher.writtenCount() - writtenBefore);
+        assertEquals(3, transactionLogBatcher.batchCount() - batchesBefore);
+    }
+
+    @Test
+    void rollbackWritesNothing() {
+        User sender = createUser("log-batch-rollback@test.local");
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionLogBatcher.append(row(sender));
+            status.setRollbackOnly();
+        });
+
+        assertEquals(0, countSentBy(sender));
+    }
+
+    @Test
+    void failedInsertFailsTheCommit() {
+        User sender = createUser("log-batch-failure@test.local");
+        Transaction orphan = row(sender);
+        orphan.setReceiver(User.builder().id(UUID.randomUUID()).build());
+
+        assertThrows(DataIntegrityViolationException.class, () ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    transactionLogBatcher.append(row(sender));
+                    transactionLogBatcher.append(orphan);
+                }));
+
+        assertEquals(0, countSentBy(sender));
+    }
+
+    @Test
+    void nestedTransactionKeepsItsOwnRows() {
+        User outer = createUser("log-batch-outer@test.local");
+        User inner = createUser("log-batch-inner@test.local");
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        List<Long> innerVisibleBeforeOuterCommit = new ArrayList<>();
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            transactionLogBatcher.append(row(outer));
+            requiresNew.executeWithoutResult(nested -> transactionLogBatcher.append(row(inner)));
+            innerVisibleBeforeOuterCommit.add(countSentBy(inner));
+            assertEquals(0, countSentBy(outer));
+        });
+
+        assertEquals(List.of(1L), innerVisibleBeforeOuterCommit);
+        assertEquals(1, countSentBy(outer));
+    }
+
+    @Test
+    void rowOutsideATransactionIsWrittenAtOnce() {
+        User sender = createUser("log-batch-direct@test.local");
+
+        Transaction written = transactionLogBatcher.append(row(sender));
+
+        assertEquals(1, countSentBy(sender));
+        assertEquals(written.getCreatedAt(), jdbcTemplate.queryForObject(
+                "select created_at from transactions where id = ?", LocalDateTime.class, written.getId()));
+    }
+
+    private long countSentBy(User sender) {
+        return jdbcTemplate.queryForObject(
+                "select count(*) from transactions where sender_id = ?", Long.class, sender.getId());
+    }
+
+    private static Transaction row(User sender) {
+        return Transaction.builder()
+                .sender(sender)
+                .receiver(sender)
+                .amount(new BigDecimal("1.00"))
+                .status(TransactionStatus.COMPLETED)
+                .transactionType("DEPOSIT")
+                .build();
+    }
+
+    private User createUser(String email) {
+        return userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+}
@@ -0,0 +1,89 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.TransactionRequest;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.exception.PaymentRejectedException;
+import com.offlinepay.backend.exception.RejectionReason;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.AuthenticatedUser;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+// Every refused online transfer is a PaymentRejectedException with a reason
+// and is counted in payment.rejections{channel="online"}, like offline ones.
+@SpringBootTest
+@ActiveProfiles("test")
+class TransactionServiceTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Test
+    void onlineRejectionsCarryTheirReasonAndAreCounted() {
+        User sender = createUser("online-rejected@test.local", "5.00");
+        AuthenticatedUser principal = new AuthenticatedUser(sender.getId(),
+                walletRepository.findIdByUserId(sender.getId()).orElseThrow(), sender.getEmail());
+
+        assertRejected(RejectionReason.RECEIVER_NOT_FOUND, principal, UUID.randomUUID(), "1.00");
+        assertRejected(RejectionReason.SELF_TRANSFER, principal, sender.getId(), "1.00");
+        UUID receiver = createUser("online-rejected-receiver@test.local", "0.00").getId();
+        assertRejected(RejectionReason.INSUFFICIENT_BALANCE, principal, receiver, "5.01");
+    }
+
+    private void assertRejected(RejectionReason reason, AuthenticatedUser principal, UUID receiverId, String amount) {
+        TransactionRequest request = new TransactionRequest();
+        request.setReceiverId(receiverId);
+        request.setAmount(new BigDecimal(amount));
+        double before = rejections(reason);
+
+        PaymentRejectedException e = assertThrows(PaymentRejectedException.class,
+                () -> transactionService.processOnlineTransaction(principal, request));
+
+        assertEquals(reason, e.getReason());
+        assertEquals(before + 1, rejections(reason));
+    }
+
+    private double rejections(RejectionReason reason) {
+        return meterRegistry.get("payment.rejections")
+                .tag("channel", "online")
+                .tag("reason", reason.name().toLowerCase(Locale.ROOT))
+                .counter().count();
+    }
+
+    private User createUser(String email, String balance) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user;
+    }
+}
@@ -0,0 +1,143 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.TransactionRequest;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.AuthenticatedUser;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// A->B / B->A transfer storm: with ordered row locks every transfer must
+// finish (no deadlock), no wallet may go negative, no money may be created
+// or lost, and the ledger must agree with the wallet balances.
+@SpringBootTest
+@ActiveProfiles("test")
+class WalletLockingLoadTest {
+
+    private static final int THREADS = 16;
+    private static final int TRANSFERS_PER_THREAD = 50;
+    private static final BigDecimal OPENING_BALANCE = new BigDecimal("1000.00");
+    private static final BigDecimal AMOUNT = new BigDecimal("7.00");
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private WalletMutationService walletMutationService;
+
+    @Autowired
+    private LedgerService ledgerService;
+
+    @Autowired
+    private LedgerReconciliationJob ledgerReconciliationJob;
+
+    @Test
+    void opposingTransfersAreDeadlockFreeAndConserveMoney() throws Exception {
+        User alice = createUser("alice-lock@test.local");
+        User bob = createUser("bob-lock@test.local");
+        // Opening snapshots adopt the seeded balances
+        ledgerService.snapshot(alice.getId());
+        ledgerService.snapshot(bob.getId());
+
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger unexpectedFailures = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < THREADS; t++) {
+            User from = t % 2 == 0 ? alice : bob;
+            User to = t % 2 == 0 ? bob : alice;
+            futures.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < TRANSFERS_PER_THREAD; i++) {
+                    TransactionRequest request = new TransactionRequest();
+                    request.setReceiverId(to.getId());
+                    request.setAmount(AMOUNT);
+                    try {
+                        transactionService.processOnlineTransaction(principal(from), request);
+                    } catch (RuntimeException e) {
+                        if (!"Insufficient balance".equals(e.getMessage())) {
+                            unexpectedFailures.incrementAndGet();
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            // A deadlock would surface here as a timeout
+            future.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+
+        BigDecimal aliceBalance = balanceOf(alice);
+        BigDecimal bobBalance = balanceOf(bob);
+
+        assertEquals(0, unexpectedFailures.get());
+        assertTrue(aliceBalance.signum() >= 0);
+        assertTrue(bobBalance.signum() >= 0);
+        assertEquals(0, OPENING_BALANCE.add(OPENING_BALANCE).compareTo(aliceBalance.add(bobBalance)));
+        assertEquals(0, aliceBalance.compareTo(ledgerService.balanceOf(alice.getId())));
+        assertEquals(0, bobBalance.compareTo(ledgerService.balanceOf(bob.getId())));
+        assertEquals(0, ledgerReconciliationJob.reconcile().mismatched());
+
+        WalletMutationService.LockStats stats = walletMutationService.statsFor(alice.getId()).orElseThrow();
+        assertEquals(THREADS * TRANSFERS_PER_THREAD, stats.getAcquisitions());
+        System.out.printf("%d transfers in %d ms, alice wallet: %d contended, avg wait %.2f ms, max wait %.2f ms%n",
+                THREADS * TRANSFERS_PER_THREAD, elapsedMs, stats.getContended(),
+                stats.getAverageWaitMillis(), stats.getMaxWaitMillis());
+    }
+
+    private User createUser(String email) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(OPENING_BALANCE)
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user;
+    }
+
+    private AuthenticatedUser principal(User user) {
+        UUID walletId = walletRepository.findIdByUserId(user.getId()).orElseThrow();
+        return new AuthenticatedUser(user.getId(), walletId, user.getEmail());
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return walletRepository.findByUser(user).orElseThrow().getBalance();
+    }
+}
@@ -0,0 +1,113 @@
+package com.offlinepay.backend.service;
+
+import com.offlinepay.backend.dto.TransactionRequest;
+import com.offlinepay.backend.entity.User;
+import com.offlinepay.backend.entity.Wallet;
+import com.offlinepay.backend.repository.UserRepository;
+import com.offlinepay.backend.repository.WalletRepository;
+import com.offlinepay.backend.security.AuthenticatedUser;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+// Counts JDBC statements per money movement. The entity load/save version of
+// an online transfer needed 7 (2 user SELECTs, 2 wallet SELECTs, 2 UPDATEs,
+// 1 INSERT). With conditional updates and the sender taken from the token it
+// needs 3 JPA statements: receiver SELECT and 2 UPDATEs. The ledger entries
+// are one plain JDBC batch and the history row is a JDBC insert by
+// TransactionLogBatcher at commit, so Hibernate statistics count neither.
+@SpringBootTest(properties = "spring.jpa.properties.hibernate.generate_statistics=true")
+@ActiveProfiles("test")
+class WalletRoundTripTest {
+
+    @Autowired
+    private TransactionService transactionService;
+
+    @Autowired
+    private WalletService walletService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private WalletRepository walletRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void onlineTransferIsTwoUpdatesAndOneInsert() {
+        User sender = createUser("sender-rt@test.local", "100.00");
+        User receiver = createUser("receiver-rt@test.local", "0.00");
+
+        TransactionRequest request = new TransactionRequest();
+        request.setReceiverId(receiver.getId());
+        request.setAmount(new BigDecimal("40.00"));
+
+        AuthenticatedUser principal = principal(sender);
+        Statistics statistics = statistics();
+        statistics.clear();
+        transactionService.processOnlineTransaction(principal, request);
+        long statements = statistics.getPrepareStatementCount();
+
+        System.out.println("Online transfer statements: " + statements);
+        assertTrue(statements <= 3, "expected at most 3 statements, got " + statements);
+        assertEquals(0, new BigDecimal("60.00").compareTo(balanceOf(sender)));
+        assertEquals(0, new BigDecimal("40.00").compareTo(balanceOf(receiver)));
+    }
+
+    @Test
+    void withdrawIsOneConditionalUpdate() {
+        User user = createUser("withdraw-rt@test.local", "10.00");
+
+        AuthenticatedUser principal = principal(user);
+        Statistics statistics = statistics();
+        statistics.clear();
+        walletService.withdrawMoney(principal, new BigDecimal("4.00"));
+        long statements = statistics.getPrepareStatementCount();
+
+        // debit UPDATE only (ledger batch and log row are plain JDBC)
+        System.out.println("Withdraw statements: " + statements);
+        assertTrue(statements <= 1, "expected at most 1 statement, got " + statements);
+        assertEquals(0, new BigDecimal("6.00").compareTo(balanceOf(user)));
+    }
+
+    private AuthenticatedUser principal(User user) {
+        UUID walletId = walletRepository.findIdByUserId(user.getId()).orElseThrow();
+        return new AuthenticatedUser(user.getId(), walletId, user.getEmail());
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    private User createUser(String email, String balance) {
+        User user = userRepository.save(User.builder()
+                .name(email)
+                .email(email)
+                .password("x")
+                .createdAt(LocalDateTime.now())
+                .build());
+        walletRepository.save(Wallet.builder()
+                .user(user)
+                .balance(new BigDecimal(balance))
+                .lastSyncedAt(LocalDateTime.now())
+                .build());
+        return user;
+    }
+
+    private BigDecimal balanceOf(User user) {
+        return walletRepository.findByUser(user).orElseThrow().getBalance();
+    }
+}
@@ -8,7 +8,9 @@ CREATE TABLE users (
     created_at TIMESTAMP WITHOUT TIME ZONE DEFAULT CURRENT_TIMESTAMP,
     reset_token VARCHAR(255),
     reset_token_expiry TIMESTAMP WITHOUT TIME ZONE,
-    public_key TEXT
+    public_key TEXT,
+    -- SHA-256 of the profile picture in the blob store
+    profile_pic_hash VARCHAR(64)
 );
 
 -- Table: wallets
@@ -17,9 +19,19 @@ CREATE TABLE wallets (
     user_id UUID NOT NULL UNIQUE,
     balance NUMERIC(19, 2) NOT NULL DEFAULT 0.00,
     last_synced_at TIMESTAMP WITHOUT TIME ZONE,
+    stripe_count INTEGER,
     CONSTRAINT fk_wallet_user FOREIGN KEY (user_id) REFERENCES users (id) ON DELETE CASCADE
 );
 
+-- Table: wallet_stripes (extra sub-balances of striped hot wallets; the wallet row is stripe 0)
+CREATE TABLE wallet_stripes (
+    id UUID PRIMARY KEY,
+    user_id UUID NOT NULL,
+    stripe_index INTEGER NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL DEFAULT 0.00,
+    CONSTRAINT uk_wallet_stripes_user_stripe UNIQUE (user_id, stripe_index)
+);
+
 -- Table: transactions
 CREATE TABLE transactions (
     id UUID PRIMARY KEY,
@@ -33,6 +45,10 @@ CREATE TABLE transactions (
     CONSTRAINT fk_transaction_receiver FOREIGN KEY (receiver_id) REFERENCES users (id)
 );
 
+-- History reads each side in index order and merges the two (UNION ALL)
+CREATE INDEX idx_transactions_sender_created ON transactions (sender_id, created_at, id);
+CREATE INDEX idx_transactions_receiver_created ON transactions (receiver_id, created_at, id);
+
 -- Table: offline_transactions
 CREATE TABLE offline_transactions (
     id UUID PRIMARY KEY,
@@ -46,3 +62,55 @@ CREATE TABLE offline_transactions (
     CONSTRAINT fk_offline_sender FOREIGN KEY (sender_id) REFERENCES users (id),
     CONSTRAINT fk_offline_receiver FOREIGN KEY (receiver_id) REFERENCES users (id)
 );
+
+-- Table: ledger_entries (append-only; every posting is one debit and one credit row)
+CREATE TABLE ledger_entries (
+    id BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    account_id UUID NOT NULL,
+    posting_id UUID NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    entry_type VARCHAR(255) NOT NULL,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+CREATE INDEX idx_ledger_entries_account_id ON ledger_entries (account_id, id);
+
+-- Table: ledger_snapshots (balance per wallet owner as of last_entry_id)
+CREATE TABLE ledger_snapshots (
+    account_id UUID PRIMARY KEY,
+    balance NUMERIC(19, 2) NOT NULL,
+    last_entry_id BIGINT NOT NULL,
+    taken_at TIMESTAMP WITHOUT TIME ZONE NOT NULL
+);
+
+-- Table: sync_jobs (asynchronous sync uploads; next_index is the resume point)
+CREATE TABLE sync_jobs (
+    id UUID PRIMARY KEY,
+    submitted_by UUID NOT NULL,
+    status VARCHAR(50) NOT NULL,
+    total INTEGER NOT NULL,
+    next_index INTEGER NOT NULL,
+    applied INTEGER NOT NULL,
+    duplicates INTEGER NOT NULL,
+    rejected INTEGER NOT NULL,
+    lease_until TIMESTAMP WITHOUT TIME ZONE,
+    created_at TIMESTAMP WITHOUT TIME ZONE NOT NULL,
+    completed_at TIMESTAMP WITHOUT TIME ZONE
+);
+
+CREATE INDEX idx_sync_jobs_status_created ON sync_jobs (status, created_at);
+
+-- Table: sync_job_items (staged payments of a job; outcome is null until processed)
+CREATE TABLE sync_job_items (
+    id UUID PRIMARY KEY,
+    job_id UUID NOT NULL,
+    item_index INTEGER NOT NULL,
+    sender_id UUID NOT NULL,
+    receiver_id UUID NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    nonce VARCHAR(255) NOT NULL,
+    signature VARCHAR(1000) NOT NULL,
+    outcome VARCHAR(50),
+    reason VARCHAR(255),
+    CONSTRAINT uk_sync_job_items_job_index UNIQUE (job_id, item_index)
+);